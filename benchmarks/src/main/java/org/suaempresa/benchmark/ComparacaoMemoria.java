@@ -0,0 +1,50 @@
+package org.suaempresa.benchmark;
+
+import org.suaempresa.model.Produto;
+import org.suaempresa.service.ProdutoService;
+import org.suaempresa.service.TipoArmazenamento;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.util.List;
+
+// Heap ocupado pelo catálogo carregado em cada TipoArmazenamento (não é um benchmark JMH).
+// Uso: java -Xmx8g -cp benchmarks/target/benchmarks.jar org.suaempresa.benchmark.ComparacaoMemoria [produtos...]
+public class ComparacaoMemoria {
+    public static void main(String[] args) throws IOException {
+        int[] tamanhos = args.length == 0 ? new int[]{100_000, 1_000_000} : new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            tamanhos[i] = Integer.parseInt(args[i]);
+        }
+        GeradorCatalogo gerador = new GeradorCatalogo();
+        System.out.printf("%12s %12s %14s %10s%n", "produtos", "armazenamento", "heap (MB)", "bytes/produto");
+        for (int tamanho : tamanhos) {
+            List<Produto> produtos = gerador.gerar(tamanho);
+            Path diretorio = gerador.criarDiretorio(produtos, true);
+            produtos = null;
+            try {
+                for (TipoArmazenamento tipo : TipoArmazenamento.values()) {
+                    long antes = heapUsado();
+                    ProdutoService service = new ProdutoService(diretorio, progresso -> { }, tipo);
+                    long depois = heapUsado();
+                    System.out.printf("%12d %12s %14.1f %10d%n", tamanho, tipo,
+                            (depois - antes) / (1024.0 * 1024), (depois - antes) / service.quantidadeProdutos());
+                    service.fechar();
+                }
+            } finally {
+                GeradorCatalogo.apagar(diretorio);
+            }
+        }
+    }
+
+    // Heap após coletas completas, para medir só o que continua alcançável
+    private static long heapUsado() {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+}
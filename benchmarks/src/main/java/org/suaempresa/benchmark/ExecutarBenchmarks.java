@@ -0,0 +1,20 @@
+package org.suaempresa.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Executa os benchmarks gravando os resultados em JSON, para comparar versões entre si.
+// Aceita os mesmos argumentos do JMH (filtro de benchmarks, -p, -f, -wi, -i, ...).
+public class ExecutarBenchmarks {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        OptionsBuilder opcoes = new OptionsBuilder();
+        opcoes.parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("jmh.resultado", "jmh-resultados.json"));
+        new Runner(opcoes.build()).run();
+    }
+}
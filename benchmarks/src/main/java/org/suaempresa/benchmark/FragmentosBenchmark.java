@@ -0,0 +1,90 @@
+package org.suaempresa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.suaempresa.model.Produto;
+import org.suaempresa.service.CatalogoFragmentado;
+import org.suaempresa.service.MargensCategoria;
+import org.suaempresa.service.TipoArmazenamento;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Relatórios consolidados com o mesmo catálogo dividido em 1, 4 ou 8 fragmentos:
+// mostra quanto a execução paralela por fragmento reduz a latência
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx6g"})
+@State(Scope.Benchmark)
+public class FragmentosBenchmark {
+    @Param({"1000000"})
+    private int tamanho;
+
+    @Param({"1", "4", "8"})
+    private int fragmentos;
+
+    @Param({"OBJETOS", "COLUNAR"})
+    private TipoArmazenamento armazenamento;
+
+    private final Map<String, Path> diretorios = new LinkedHashMap<>();
+    private CatalogoFragmentado catalogo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorCatalogo gerador = new GeradorCatalogo();
+        List<Produto> produtos = gerador.gerar(tamanho);
+        for (int f = 0; f < fragmentos; f++) {
+            List<Produto> parte = new ArrayList<>();
+            for (int i = f; i < produtos.size(); i += fragmentos) {
+                parte.add(produtos.get(i));
+            }
+            diretorios.put("loja" + f, gerador.criarDiretorio(parte, true));
+        }
+        catalogo = new CatalogoFragmentado(diretorios, armazenamento, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() {
+        catalogo.fechar();
+        diretorios.values().forEach(GeradorCatalogo::apagar);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> margemLucroMediaPorCategoria() {
+        return catalogo.margemLucroMediaPorCategoria();
+    }
+
+    @Benchmark
+    public Map<String, MargensCategoria> relatorioPrecificacao() {
+        return catalogo.relatorioPrecificacao(10);
+    }
+
+    @Benchmark
+    public Map<String, List<Produto>> produtosPorSetor() {
+        return catalogo.produtosPorSetor();
+    }
+
+    @Benchmark
+    public List<Produto> produtosProximosVencimento() {
+        return catalogo.produtosProximosVencimento();
+    }
+}
@@ -0,0 +1,99 @@
+package org.suaempresa.benchmark;
+
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+import org.suaempresa.service.SnapshotBinario;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// Catálogo sintético e determinístico (mesma semente, mesmos produtos) para os benchmarks
+public class GeradorCatalogo {
+    private static final String[] PALAVRAS = {
+            "Arroz", "Feijão", "Café", "Açúcar", "Leite", "Suco", "Água", "Biscoito",
+            "Macarrão", "Óleo", "Integral", "Orgânico", "Tradicional", "Light", "Pacote", "Garrafa"
+    };
+
+    private final List<Categoria> categorias = List.of(
+            new Categoria(1, "Alimentos", "Produtos alimentícios", "Perecíveis"),
+            new Categoria(2, "Bebidas", "Bebidas em geral", "Perecíveis"),
+            new Categoria(3, "Limpeza", "Produtos de limpeza", "Não perecíveis"),
+            new Categoria(4, "Higiene", "Higiene pessoal", "Não perecíveis")
+    );
+
+    public List<Categoria> getCategorias() {
+        return categorias;
+    }
+
+    public List<Produto> gerar(int quantidade) {
+        Random random = new Random(42);
+        LocalDate hoje = LocalDate.now();
+        List<Produto> produtos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            BigDecimal compra = BigDecimal.valueOf(100 + random.nextInt(10_000), 2);
+            BigDecimal venda = compra.add(BigDecimal.valueOf(1 + random.nextInt(5_000), 2));
+            LocalDate fabricacao = hoje.minusDays(1 + random.nextInt(365));
+            produtos.add(new Produto(
+                    codigo(i),
+                    PALAVRAS[random.nextInt(8)] + " " + PALAVRAS[8 + random.nextInt(8)] + " " + i,
+                    PALAVRAS[random.nextInt(PALAVRAS.length)] + " " + PALAVRAS[random.nextInt(PALAVRAS.length)],
+                    fabricacao,
+                    hoje.plusDays(random.nextInt(720) - 30),
+                    compra,
+                    venda,
+                    random.nextInt(200),
+                    categorias.get(random.nextInt(categorias.size()))
+            ));
+        }
+        return produtos;
+    }
+
+    // Códigos de 8 caracteres alfanuméricos, únicos por índice
+    public static String codigo(int indice) {
+        String base36 = Integer.toString(indice, 36).toUpperCase();
+        return "P" + "0".repeat(7 - base36.length()) + base36;
+    }
+
+    public Path criarDiretorio(List<Produto> produtos, boolean comSnapshot) throws IOException {
+        Path diretorio = Files.createTempDirectory("catalogo-bench");
+        try (BufferedWriter bw = Files.newBufferedWriter(diretorio.resolve("categorias.csv"), StandardCharsets.UTF_8)) {
+            for (Categoria c : categorias) {
+                bw.write(c.getId() + ";" + c.getNome() + ";" + c.getDescricao() + ";" + c.getSetor());
+                bw.newLine();
+            }
+        }
+        gravarCsv(diretorio.resolve("produtos.csv"), produtos);
+        if (comSnapshot) {
+            SnapshotBinario.gravar(diretorio.resolve("produtos.bin"), produtos);
+        }
+        return diretorio;
+    }
+
+    public static void gravarCsv(Path arquivo, List<Produto> produtos) throws IOException {
+        try (BufferedWriter bw = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+            for (Produto p : produtos) {
+                bw.write(p.toString());
+                bw.newLine();
+            }
+        }
+    }
+
+    public static void apagar(Path diretorio) {
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
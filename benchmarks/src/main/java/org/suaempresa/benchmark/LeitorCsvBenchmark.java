@@ -0,0 +1,88 @@
+package org.suaempresa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.service.LeitorCsvParalelo;
+import org.suaempresa.service.LeitorCsvProdutos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Leitura de produtos.csv: o caminho antigo (BufferedReader + split), o leitor de
+// passada única e o leitor paralelo com arquivo mapeado em memória.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class LeitorCsvBenchmark {
+    @Param({"100000", "1000000", "5000000"})
+    private int tamanho;
+
+    private List<Categoria> categorias;
+    private Path diretorio;
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorCatalogo gerador = new GeradorCatalogo();
+        categorias = gerador.getCategorias();
+        diretorio = gerador.criarDiretorio(gerador.gerar(tamanho), false);
+        arquivo = diretorio.resolve("produtos.csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() {
+        GeradorCatalogo.apagar(diretorio);
+    }
+
+    // Referência: mesmo laço que o ProdutoService usava antes do LeitorCsvProdutos
+    @Benchmark
+    public void bufferedReaderComSplit(Blackhole bh) throws IOException {
+        try (BufferedReader br = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] dados = line.split(";");
+                bh.consume(new BigDecimal(dados[5]));
+                bh.consume(new BigDecimal(dados[6]));
+                bh.consume(LocalDate.parse(dados[3]));
+                bh.consume(LocalDate.parse(dados[4]));
+                bh.consume(categorias.stream()
+                        .filter(c -> c.getId() == Integer.parseInt(dados[8]))
+                        .findFirst()
+                        .orElse(categorias.get(0)));
+            }
+        }
+    }
+
+    @Benchmark
+    public long leitorSequencial(Blackhole bh) throws IOException {
+        return new LeitorCsvProdutos(categorias).carregar(arquivo, bh::consume).getLinhas();
+    }
+
+    @Benchmark
+    public long leitorParalelo(Blackhole bh) throws IOException {
+        return new LeitorCsvParalelo(categorias).carregar(arquivo, bh::consume).getLinhas();
+    }
+}
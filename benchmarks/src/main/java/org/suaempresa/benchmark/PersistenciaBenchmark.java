@@ -0,0 +1,83 @@
+package org.suaempresa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.suaempresa.model.Produto;
+import org.suaempresa.service.ProdutoService;
+import org.suaempresa.service.SnapshotBinario;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Carga e gravação do catálogo completo (o que carregarProdutos/salvarProdutos fazem
+// dentro do serviço) em vários tamanhos de catálogo.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class PersistenciaBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int tamanho;
+
+    private List<Produto> produtos;
+    private Path diretorioCsv;
+    private Path diretorioSnapshot;
+    private Path saida;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorCatalogo gerador = new GeradorCatalogo();
+        produtos = gerador.gerar(tamanho);
+        diretorioCsv = gerador.criarDiretorio(produtos, false);
+        diretorioSnapshot = gerador.criarDiretorio(produtos, true);
+        saida = Files.createTempDirectory("saida-bench");
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() {
+        GeradorCatalogo.apagar(diretorioCsv);
+        GeradorCatalogo.apagar(diretorioSnapshot);
+        GeradorCatalogo.apagar(saida);
+    }
+
+    @Benchmark
+    public int carregarDoCsv() {
+        ProdutoService service = new ProdutoService(diretorioCsv);
+        service.fechar();
+        // A primeira carga sem snapshot não grava nada; o diretório continua só com CSV
+        return service.quantidadeProdutos();
+    }
+
+    @Benchmark
+    public int carregarDoSnapshot() {
+        ProdutoService service = new ProdutoService(diretorioSnapshot);
+        service.fechar();
+        return service.quantidadeProdutos();
+    }
+
+    @Benchmark
+    public void salvarCsv() throws IOException {
+        GeradorCatalogo.gravarCsv(saida.resolve("produtos.csv"), produtos);
+    }
+
+    @Benchmark
+    public void salvarSnapshot() throws IOException {
+        SnapshotBinario.gravar(saida.resolve("produtos.bin"), produtos);
+    }
+}
@@ -0,0 +1,122 @@
+package org.suaempresa.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.suaempresa.model.Produto;
+import org.suaempresa.service.ConsultaProdutos;
+import org.suaempresa.service.Criterio;
+import org.suaempresa.service.MargensCategoria;
+import org.suaempresa.service.ProdutoService;
+import org.suaempresa.service.TipoArmazenamento;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Operações do dia a dia sobre um catálogo já carregado
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ServicoBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int tamanho;
+
+    @Param({"OBJETOS", "COLUNAR"})
+    private TipoArmazenamento armazenamento;
+
+    private Path diretorio;
+    private ProdutoService service;
+    private Produto modelo;
+    private int proximoCodigo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        GeradorCatalogo gerador = new GeradorCatalogo();
+        List<Produto> produtos = gerador.gerar(tamanho);
+        diretorio = gerador.criarDiretorio(produtos, true);
+        service = new ProdutoService(diretorio, progresso -> { }, armazenamento);
+        modelo = produtos.get(0);
+        proximoCodigo = tamanho;
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() {
+        service.fechar();
+        GeradorCatalogo.apagar(diretorio);
+    }
+
+    @Benchmark
+    public Produto consultarProduto() {
+        return service.consultarProduto(GeradorCatalogo.codigo(ThreadLocalRandom.current().nextInt(tamanho)));
+    }
+
+    // Inclusão em memória + registro no journal; o fsync acontece na thread de I/O
+    @Benchmark
+    public CompletableFuture<Void> cadastrarProduto() {
+        return service.cadastrarProduto(new Produto(GeradorCatalogo.codigo(proximoCodigo++),
+                modelo.getNome(), modelo.getDescricao(), modelo.getDataFabricacao(), modelo.getDataValidade(),
+                modelo.getPrecoCompra(), modelo.getPrecoVenda(), modelo.getQuantidadeEstoque(),
+                modelo.getCategoria()));
+    }
+
+    @Benchmark
+    public Produto validarProduto() {
+        service.validarProduto(modelo);
+        return modelo;
+    }
+
+    @Benchmark
+    public List<Produto> produtosProximosVencimento() {
+        return service.produtosProximosVencimento();
+    }
+
+    @Benchmark
+    public List<Produto> produtosEstoqueBaixo() {
+        return service.produtosEstoqueBaixo();
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> margemLucroMediaPorCategoria() {
+        return service.margemLucroMediaPorCategoria();
+    }
+
+    @Benchmark
+    public Map<String, MargensCategoria> relatorioPrecificacao() {
+        return service.relatorioPrecificacao(10);
+    }
+
+    @Benchmark
+    public Map<String, List<Produto>> produtosPorSetor() {
+        return service.produtosPorSetor();
+    }
+
+    // Categoria + faixa de preço + estoque, como no painel de filtro da tela principal
+    @Benchmark
+    public List<Produto> consultaCombinada() {
+        return service.consultar(new ConsultaProdutos(Criterio.e(
+                Criterio.categoria("Bebidas"),
+                Criterio.precoVendaEntre(new BigDecimal("20"), new BigDecimal("60")),
+                Criterio.estoqueEntre(0, 50)))
+                .ordenarPor(ConsultaProdutos.Ordenacao.CODIGO)
+                .limitar(1000));
+    }
+}
@@ -2,6 +2,8 @@ module org.suaempresa.gerenciadorprodutos {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.base;
+    requires java.management;
+    requires jdk.jfr;
 
     opens org.suaempresa.mainApp to javafx.fxml;
     opens org.suaempresa.controller to javafx.fxml;
@@ -0,0 +1,30 @@
+package org.suaempresa.controller;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Usado pelas telas que alteram o catálogo: a gravação em disco termina em segundo
+// plano e as falhas são avisadas na thread do JavaFX
+final class AcompanhamentoGravacao {
+
+    private AcompanhamentoGravacao() {
+    }
+
+    static void acompanhar(CompletableFuture<Void> gravacao) {
+        gravacao.whenComplete((ok, erro) -> {
+            if (erro != null) {
+                Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+                Platform.runLater(() -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setTitle("Erro");
+                    alert.setHeaderText(null);
+                    alert.setContentText("Não foi possível gravar a alteração em disco: " + causa.getMessage());
+                    alert.showAndWait();
+                });
+            }
+        });
+    }
+}
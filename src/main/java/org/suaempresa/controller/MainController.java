@@ -1,22 +1,36 @@
 package org.suaempresa.controller;
 
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import org.suaempresa.model.Categoria;
 import org.suaempresa.model.Produto;
+import org.suaempresa.service.ConsultaProdutos;
+import org.suaempresa.service.Criterio;
+import org.suaempresa.service.EventoCatalogo;
 import org.suaempresa.service.ProdutoService;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class MainController {
+    private static final int LIMITE_PESQUISA = 200;
+    private static final int LIMITE_FILTRO = 1000;
+    // Produtos de maior e de menor margem listados por categoria nos relatórios
+    private static final int LIMITE_PRECIFICACAO = 5;
+
     @FXML private TableView<Produto> produtoTable;
     @FXML private TableColumn<Produto, String> codigoColumn;
     @FXML private TableColumn<Produto, String> nomeColumn;
@@ -28,29 +42,216 @@ public class MainController {
     @FXML private TableColumn<Produto, Integer> quantidadeEstoqueColumn;
     @FXML private TableColumn<Produto, Categoria> categoriaColumn;
     @FXML private TextField codigoConsulta;
+    @FXML private TextField pesquisaField;
+    @FXML private ComboBox<String> categoriaFiltro;
+    @FXML private ComboBox<String> setorFiltro;
+    @FXML private TextField precoMinimoFiltro;
+    @FXML private TextField precoMaximoFiltro;
+    @FXML private TextField estoqueMinimoFiltro;
+    @FXML private TextField estoqueMaximoFiltro;
+    @FXML private DatePicker validadeAteFiltro;
 
     private ProdutoService produtoService;
+    private ProdutosPaginados produtos;
+    // Busca ou filtro exibido no lugar da listagem paginada; null quando é a listagem
+    private Supplier<List<Produto>> consultaAtiva;
+    // ProductForm.fxml é carregado na primeira abertura e reaproveitado nas seguintes
+    private Stage formularioStage;
+    private ProductFormController formularioController;
+    // Último evento do catálogo refletido na tabela e recargas/redesenhos já pedidos
+    private long sequenciaTabela;
+    private boolean recargaAgendada;
+    private boolean redesenhoAgendado;
 
+    // Os eventos são entregues pela thread do JavaFX, então os primeiros só chegam
+    // depois que a tabela inicial (e a sua sequência) estiver montada
     public void setProdutoService(ProdutoService produtoService) {
         this.produtoService = produtoService;
+        produtoService.getEventos().subscribe(new AssinanteTabela());
         initializeTable();
     }
 
     private void initializeTable() {
-        codigoColumn.setCellValueFactory(new PropertyValueFactory<>("codigo"));
-        nomeColumn.setCellValueFactory(new PropertyValueFactory<>("nome"));
-        descricaoColumn.setCellValueFactory(new PropertyValueFactory<>("descricao"));
-        dataFabricacaoColumn.setCellValueFactory(new PropertyValueFactory<>("dataFabricacao"));
-        dataValidadeColumn.setCellValueFactory(new PropertyValueFactory<>("dataValidade"));
-        precoCompraColumn.setCellValueFactory(new PropertyValueFactory<>("precoCompra"));
-        precoVendaColumn.setCellValueFactory(new PropertyValueFactory<>("precoVenda"));
-        quantidadeEstoqueColumn.setCellValueFactory(new PropertyValueFactory<>("quantidadeEstoque"));
-        categoriaColumn.setCellValueFactory(new PropertyValueFactory<>("categoria"));
+        coluna(codigoColumn, Produto::getCodigo);
+        coluna(nomeColumn, Produto::getNome);
+        coluna(descricaoColumn, Produto::getDescricao);
+        coluna(dataFabricacaoColumn, Produto::getDataFabricacao);
+        coluna(dataValidadeColumn, Produto::getDataValidade);
+        coluna(precoCompraColumn, Produto::getPrecoCompra);
+        coluna(precoVendaColumn, Produto::getPrecoVenda);
+        coluna(quantidadeEstoqueColumn, Produto::getQuantidadeEstoque);
+        coluna(categoriaColumn, Produto::getCategoria);
+        pesquisaField.textProperty().addListener((obs, anterior, texto) -> pesquisar());
+        for (Categoria categoria : produtoService.getCategorias()) {
+            if (!categoriaFiltro.getItems().contains(categoria.getNome())) {
+                categoriaFiltro.getItems().add(categoria.getNome());
+            }
+            if (!setorFiltro.getItems().contains(categoria.getSetor())) {
+                setorFiltro.getItems().add(categoria.getSetor());
+            }
+        }
         atualizarTabela();
     }
 
+    // Linha nula: linha de ProdutosPaginados já excluída no serviço, antes de o evento chegar
+    private static <T> void coluna(TableColumn<Produto, T> coluna, Function<Produto, T> valor) {
+        coluna.setCellValueFactory(c -> new ReadOnlyObjectWrapper<>(c.getValue() == null ? null : valor.apply(c.getValue())));
+    }
+
+    // A tabela lê do serviço apenas as páginas visíveis; recriar a lista não copia produtos
     private void atualizarTabela() {
-        produtoTable.setItems(FXCollections.observableArrayList(produtoService.listarTodos()));
+        produtos = new ProdutosPaginados(produtoService);
+        sequenciaTabela = produtos.getSequencia();
+        exibirConsulta(null);
+    }
+
+    // Com texto na busca a tabela mostra os resultados ranqueados; sem texto, a listagem paginada
+    private void pesquisar() {
+        String texto = pesquisaField.getText();
+        if (texto == null || texto.isBlank()) {
+            exibirConsulta(null);
+        } else {
+            exibirConsulta(() -> produtoService.pesquisarProdutos(texto, LIMITE_PESQUISA));
+        }
+    }
+
+    private void exibirConsulta(Supplier<List<Produto>> consulta) {
+        consultaAtiva = consulta;
+        produtoTable.setItems(consulta == null ? produtos : FXCollections.observableArrayList(consulta.get()));
+    }
+
+    private boolean consultando() {
+        return consultaAtiva != null;
+    }
+
+    // Alteração sobre os resultados de uma busca ou filtro, ou que não dá para aplicar como
+    // delta: a listagem paginada é recriada e a consulta ativa (se houver) é refeita
+    private void atualizarConsulta() {
+        recargaAgendada = false;
+        produtos = new ProdutosPaginados(produtoService);
+        sequenciaTabela = produtos.getSequencia();
+        exibirConsulta(consultaAtiva);
+    }
+
+    // Na listagem cada evento vira um delta por posição. Sobre uma busca ou filtro, depois
+    // de eventos descartados (salto na sequência) ou sem posição conhecida, a tabela é
+    // recarregada uma vez por rajada: a recarga lê o estado atual e os eventos que ainda
+    // estiverem na fila até lá já estão nela.
+    private void aplicarEvento(EventoCatalogo evento) {
+        if (recargaAgendada || evento.getSequencia() <= sequenciaTabela) {
+            return;
+        }
+        boolean emOrdem = evento.getSequencia() == sequenciaTabela + 1;
+        sequenciaTabela = evento.getSequencia();
+        boolean semPosicao = evento.getPosicao() < 0 && evento.getTipo() != EventoCatalogo.Tipo.ESTOQUE_ALTERADO;
+        if (!emOrdem || consultando() || semPosicao) {
+            recargaAgendada = true;
+            Platform.runLater(this::atualizarConsulta);
+            return;
+        }
+        switch (evento.getTipo()) {
+            case CRIADO -> produtos.produtoIncluido(evento.getPosicao());
+            case ATUALIZADO -> produtos.produtoSubstituido(evento.getPosicao(), evento.getAnterior());
+            case EXCLUIDO -> produtos.produtoRemovido(evento.getPosicao(), evento.getProduto());
+            case ESTOQUE_ALTERADO -> {
+                produtos.estoqueAlterado();
+                if (!redesenhoAgendado) {
+                    redesenhoAgendado = true;
+                    Platform.runLater(() -> {
+                        redesenhoAgendado = false;
+                        produtoTable.refresh();
+                    });
+                }
+            }
+        }
+    }
+
+    // Contrapressão: o próximo evento só é pedido depois que a thread do JavaFX aplicou
+    // o anterior; com a fila cheia o serviço descarta e a tabela se recarrega
+    private final class AssinanteTabela implements Flow.Subscriber<EventoCatalogo> {
+        private Flow.Subscription assinatura;
+
+        @Override
+        public void onSubscribe(Flow.Subscription assinatura) {
+            this.assinatura = assinatura;
+            assinatura.request(1);
+        }
+
+        @Override
+        public void onNext(EventoCatalogo evento) {
+            Platform.runLater(() -> {
+                aplicarEvento(evento);
+                assinatura.request(1);
+            });
+        }
+
+        @Override
+        public void onError(Throwable erro) {
+            erro.printStackTrace();
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    // Os campos preenchidos do painel de filtro são combinados com E
+    @FXML
+    private void handleFiltrar() {
+        List<Criterio> criterios = new ArrayList<>();
+        try {
+            if (categoriaFiltro.getValue() != null) {
+                criterios.add(Criterio.categoria(categoriaFiltro.getValue()));
+            }
+            if (setorFiltro.getValue() != null) {
+                criterios.add(Criterio.setor(setorFiltro.getValue()));
+            }
+            BigDecimal precoMinimo = decimalOuNulo(precoMinimoFiltro);
+            BigDecimal precoMaximo = decimalOuNulo(precoMaximoFiltro);
+            if (precoMinimo != null || precoMaximo != null) {
+                criterios.add(Criterio.precoVendaEntre(precoMinimo, precoMaximo));
+            }
+            if (!estoqueMinimoFiltro.getText().isBlank() || !estoqueMaximoFiltro.getText().isBlank()) {
+                criterios.add(Criterio.estoqueEntre(
+                        estoqueMinimoFiltro.getText().isBlank() ? Integer.MIN_VALUE : Integer.parseInt(estoqueMinimoFiltro.getText().trim()),
+                        estoqueMaximoFiltro.getText().isBlank() ? Integer.MAX_VALUE : Integer.parseInt(estoqueMaximoFiltro.getText().trim())));
+            }
+        } catch (NumberFormatException e) {
+            showAlert(Alert.AlertType.ERROR, "Erro", "Formato inválido para números ou decimais.");
+            return;
+        }
+        if (validadeAteFiltro.getValue() != null) {
+            criterios.add(Criterio.validadeEntre(null, validadeAteFiltro.getValue().plusDays(1)));
+        }
+        if (criterios.isEmpty()) {
+            showAlert(Alert.AlertType.WARNING, "Aviso", "Preencha ao menos um campo do filtro.");
+            return;
+        }
+        ConsultaProdutos consulta = new ConsultaProdutos(Criterio.e(criterios.toArray(new Criterio[0])))
+                .ordenarPor(ConsultaProdutos.Ordenacao.CODIGO)
+                .limitar(LIMITE_FILTRO);
+        pesquisaField.clear();
+        exibirConsulta(() -> produtoService.consultar(consulta));
+    }
+
+    @FXML
+    private void handleLimparFiltro() {
+        limparFiltro();
+        exibirConsulta(null);
+    }
+
+    private void limparFiltro() {
+        categoriaFiltro.setValue(null);
+        setorFiltro.setValue(null);
+        precoMinimoFiltro.clear();
+        precoMaximoFiltro.clear();
+        estoqueMinimoFiltro.clear();
+        estoqueMaximoFiltro.clear();
+        validadeAteFiltro.setValue(null);
+    }
+
+    private static BigDecimal decimalOuNulo(TextField campo) {
+        return campo.getText().isBlank() ? null : new BigDecimal(campo.getText().trim());
     }
 
     @FXML
@@ -62,8 +263,8 @@ public class MainController {
     private void handleExcluir() {
         Produto selected = produtoTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            produtoService.excluirProduto(selected.getCodigo());
-            atualizarTabela();
+            // A tabela é atualizada pelo evento de exclusão
+            AcompanhamentoGravacao.acompanhar(produtoService.excluirProduto(selected.getCodigo()));
             showAlert(Alert.AlertType.INFORMATION, "Sucesso", "Produto excluído com sucesso!");
         } else {
             showAlert(Alert.AlertType.WARNING, "Aviso", "Selecione um produto para excluir.");
@@ -87,6 +288,8 @@ public class MainController {
 
     @FXML
     private void handleListar() {
+        pesquisaField.clear();
+        limparFiltro();
         atualizarTabela();
     }
 
@@ -105,6 +308,16 @@ public class MainController {
         produtoService.margemLucroMediaPorCategoria().forEach((cat, margem) ->
                 relatorio.append(cat).append(": ").append(String.format("%.2f%%", margem)).append("\n"));
 
+        relatorio.append("\nMaiores e menores margens por categoria:\n");
+        produtoService.relatorioPrecificacao(LIMITE_PRECIFICACAO).forEach((cat, margens) -> {
+            relatorio.append(cat).append(":\n  Maiores:\n");
+            margens.getMaiores().forEach(p -> relatorio.append("    ").append(p.getNome())
+                    .append(" - ").append(String.format("%.2f%%", p.getMargem())).append("\n"));
+            relatorio.append("  Menores:\n");
+            margens.getMenores().forEach(p -> relatorio.append("    ").append(p.getNome())
+                    .append(" - ").append(String.format("%.2f%%", p.getMargem())).append("\n"));
+        });
+
         relatorio.append("\nProdutos por setor:\n");
         produtoService.produtosPorSetor().forEach((setor, produtos) -> {
             relatorio.append(setor).append(":\n");
@@ -123,25 +336,33 @@ public class MainController {
 
     private void abrirFormularioProduto(Produto produto) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/suaempresa/view/ProductForm.fxml"));
-            Stage stage = new Stage();
-            stage.setScene(new Scene(loader.load()));
-            stage.initModality(Modality.APPLICATION_MODAL);
-            stage.setTitle(produto == null ? "Cadastrar Produto" : "Consultar Produto");
-
-            ProductFormController controller = loader.getController();
-            controller.setProdutoService(produtoService);
-            controller.setProduto(produto);
-            controller.setStage(stage);
-
-            stage.showAndWait();
-            atualizarTabela();
+            if (formularioStage == null) {
+                carregarFormulario();
+            }
+            formularioStage.setTitle(produto == null ? "Cadastrar Produto" : "Consultar Produto");
+            formularioController.setProduto(produto);
+
+            // O produto salvo chega à tabela pelo evento de cadastro ou atualização
+            formularioStage.showAndWait();
         } catch (IOException e) {
             e.printStackTrace();
             showAlert(Alert.AlertType.ERROR, "Erro", "Não foi possível abrir o formulário.");
         }
     }
 
+    private void carregarFormulario() throws IOException {
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/suaempresa/view/ProductForm.fxml"));
+        Stage stage = new Stage();
+        stage.setScene(new Scene(loader.load()));
+        stage.initModality(Modality.APPLICATION_MODAL);
+
+        ProductFormController controller = loader.getController();
+        controller.setProdutoService(produtoService);
+        controller.setStage(stage);
+        formularioStage = stage;
+        formularioController = controller;
+    }
+
     private void showAlert(Alert.AlertType type, String title, String message) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
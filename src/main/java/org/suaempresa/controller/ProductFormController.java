@@ -30,9 +30,21 @@ public class ProductFormController {
         categoriaCombo.getItems().addAll(produtoService.getCategorias());
     }
 
+    // O formulário é reaproveitado entre aberturas: cada chamada redefine todos os campos
     public void setProduto(Produto produto) {
         this.produto = produto;
-        if (produto != null) {
+        if (produto == null) {
+            codigoField.clear();
+            nomeField.clear();
+            descricaoField.clear();
+            dataFabricacaoPicker.setValue(null);
+            dataValidadePicker.setValue(null);
+            precoCompraField.clear();
+            precoVendaField.clear();
+            quantidadeEstoqueField.clear();
+            categoriaCombo.setValue(null);
+            codigoField.setDisable(false);
+        } else {
             codigoField.setText(produto.getCodigo());
             nomeField.setText(produto.getNome());
             descricaoField.setText(produto.getDescricao());
@@ -64,7 +76,11 @@ public class ProductFormController {
                     Integer.parseInt(quantidadeEstoqueField.getText()),
                     categoriaCombo.getValue()
             );
-            produtoService.cadastrarProduto(novoProduto);
+            if (produto == null) {
+                AcompanhamentoGravacao.acompanhar(produtoService.cadastrarProduto(novoProduto));
+            } else {
+                AcompanhamentoGravacao.acompanhar(produtoService.atualizarProduto(novoProduto));
+            }
             showAlert(Alert.AlertType.INFORMATION, "Sucesso", "Produto salvo com sucesso!");
             stage.close();
         } catch (NumberFormatException e) {
@@ -0,0 +1,109 @@
+package org.suaempresa.controller;
+
+import javafx.collections.ObservableListBase;
+import org.suaempresa.model.Produto;
+import org.suaempresa.service.ProdutoService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lista observável da tabela de produtos: busca no serviço apenas as páginas que
+// a TableView pede ao desenhar as linhas visíveis, mantendo poucas em cache.
+// Alterações são aplicadas como deltas (inclusão, remoção, substituição) vindos dos
+// eventos do catálogo posteriores a getSequencia(); o tamanho acompanha os deltas.
+public class ProdutosPaginados extends ObservableListBase<Produto> {
+    private static final int TAMANHO_PAGINA = 100;
+    private static final int PAGINAS_EM_CACHE = 8;
+
+    private final ProdutoService produtoService;
+    private final Map<Integer, List<Produto>> paginas = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Produto>> eldest) {
+            return size() > PAGINAS_EM_CACHE;
+        }
+    };
+    private int tamanho;
+    private final long sequencia;
+
+    public ProdutosPaginados(ProdutoService produtoService) {
+        this.produtoService = produtoService;
+        // Tamanho e sequência do mesmo estado: repete se um evento foi publicado no meio
+        long antes;
+        long depois = produtoService.getSequenciaEventos();
+        do {
+            antes = depois;
+            tamanho = produtoService.quantidadeProdutos();
+            depois = produtoService.getSequenciaEventos();
+        } while (antes != depois);
+        this.sequencia = depois;
+    }
+
+    // Último evento já refletido no tamanho inicial
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    @Override
+    public Produto get(int index) {
+        if (index < 0 || index >= tamanho) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int pagina = index / TAMANHO_PAGINA;
+        int linha = index % TAMANHO_PAGINA;
+        List<Produto> produtos = pagina(pagina);
+        if (linha < produtos.size()) {
+            return produtos.get(linha);
+        }
+        // A página em cache pode ter sido lida com o serviço à frente dos eventos já
+        // aplicados (exclusões ainda na fila): relê uma vez e, se ainda faltar a linha,
+        // ela fica vazia (null; as colunas da tabela aceitam linha nula) até o evento
+        // da exclusão chegar e corrigir o tamanho
+        paginas.remove(pagina);
+        produtos = pagina(pagina);
+        return linha < produtos.size() ? produtos.get(linha) : null;
+    }
+
+    private List<Produto> pagina(int pagina) {
+        return paginas.computeIfAbsent(pagina, p -> produtoService.listarPagina(p * TAMANHO_PAGINA, TAMANHO_PAGINA));
+    }
+
+    @Override
+    public int size() {
+        return tamanho;
+    }
+
+    public void produtoIncluido(int index) {
+        invalidarAPartirDe(index);
+        tamanho++;
+        beginChange();
+        nextAdd(index, index + 1);
+        endChange();
+    }
+
+    public void produtoRemovido(int index, Produto removido) {
+        invalidarAPartirDe(index);
+        tamanho--;
+        beginChange();
+        nextRemove(index, removido);
+        endChange();
+    }
+
+    public void produtoSubstituido(int index, Produto anterior) {
+        paginas.remove(index / TAMANHO_PAGINA);
+        beginChange();
+        nextSet(index, anterior);
+        endChange();
+    }
+
+    // Movimentação de estoque sem posição: as páginas em cache são relidas quando a
+    // tabela redesenhar as linhas visíveis
+    public void estoqueAlterado() {
+        paginas.clear();
+    }
+
+    // Inclusões e remoções deslocam todas as posições seguintes
+    private void invalidarAPartirDe(int index) {
+        paginas.keySet().removeIf(p -> p >= index / TAMANHO_PAGINA);
+    }
+}
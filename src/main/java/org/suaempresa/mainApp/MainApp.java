@@ -1,30 +1,146 @@
 package org.suaempresa.mainApp;
 
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.StageStyle;
 import org.suaempresa.controller.MainController;
+import org.suaempresa.service.ArquivoEventos;
 import org.suaempresa.service.ProdutoService;
+import org.suaempresa.service.TipoArmazenamento;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
 
 public class MainApp extends Application {
+    private static final Path ARQUIVO_INICIALIZACAO = Path.of("inicializacao.log");
+
+    private final MedicaoInicializacao medicao = new MedicaoInicializacao();
+    private ProdutoService produtoService;
+
+    // O catálogo é carregado fora da thread do JavaFX enquanto uma tela de abertura mostra
+    // o progresso; nesse meio tempo a thread do JavaFX já monta a janela principal
     @Override
-    public void start(Stage primaryStage) throws IOException {
-        ProdutoService produtoService = new ProdutoService();
+    public void start(Stage primaryStage) {
+        medicao.marcar("start");
+        TipoArmazenamento armazenamento;
+        try {
+            armazenamento = tipoArmazenamento();
+        } catch (IllegalArgumentException ex) {
+            falhaNaAbertura(ex);
+            return;
+        }
+        ProgressBar barra = new ProgressBar();
+        barra.setPrefWidth(300);
+        VBox splash = new VBox(10, new Label("Carregando catálogo de produtos..."), barra);
+        splash.setPadding(new Insets(20));
+        Stage splashStage = new Stage(StageStyle.UNDECORATED);
+        splashStage.setScene(new Scene(splash));
+        splashStage.show();
+
+        Task<ProdutoService> carga = new Task<>() {
+            @Override
+            protected ProdutoService call() {
+                ProdutoService service = new ProdutoService(Path.of("."), progresso -> updateProgress(progresso, 1), armazenamento);
+                // -Dprodutos.metricas.intervalo=<segundos> (0 desliga) controla o metricas.log
+                long intervalo = Long.getLong("produtos.metricas.intervalo", 60);
+                if (intervalo > 0) {
+                    service.registrarMetricasPeriodicamente(Duration.ofSeconds(intervalo));
+                }
+                // -Dprodutos.eventos=<arquivo> grava as alterações do catálogo, uma por linha
+                String eventos = System.getProperty("produtos.eventos");
+                if (eventos != null) {
+                    service.getEventos().subscribe(new ArquivoEventos(Path.of(eventos), service.getMetricas()));
+                }
+                return service;
+            }
+        };
+        barra.progressProperty().bind(carga.progressProperty());
+        Thread thread = new Thread(carga, "carga-catalogo");
+        thread.setDaemon(true);
+        thread.start();
+
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/org/suaempresa/view/Main.fxml"));
+        Scene scene;
+        try {
+            scene = new Scene(loader.load(), 800, 600);
+        } catch (IOException ex) {
+            splashStage.close();
+            falhaNaAbertura(ex);
+            return;
+        }
+        medicao.marcar("janela");
+
+        // Os eventos da carga passam pela thread do JavaFX, então só chegam depois deste método
+        carga.setOnSucceeded(e -> {
+            medicao.marcar("catalogo");
+            produtoService = carga.getValue();
+            splashStage.close();
+            MainController controller = loader.getController();
+            controller.setProdutoService(produtoService);
+            mostrarJanelaPrincipal(primaryStage, scene);
+        });
+        carga.setOnFailed(e -> {
+            splashStage.close();
+            falhaNaAbertura(carga.getException());
+        });
+    }
 
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("src/main/java/org/suaempresa/view"));
-        Scene scene = new Scene(loader.load(), 800, 600);
-        MainController controller = loader.getController();
-        controller.setProdutoService(produtoService);
+    // -Dprodutos.armazenamento=colunar reduz o heap de catálogos muito grandes
+    private static TipoArmazenamento tipoArmazenamento() {
+        String valor = System.getProperty("produtos.armazenamento", "objetos");
+        try {
+            return TipoArmazenamento.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("valor inválido para produtos.armazenamento: \"" + valor
+                    + "\" (use " + Arrays.toString(TipoArmazenamento.values()).toLowerCase(Locale.ROOT) + ").", ex);
+        }
+    }
 
+    private void mostrarJanelaPrincipal(Stage primaryStage, Scene scene) {
+        // O primeiro pulso com layout depois do show() é o que desenha o primeiro quadro
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                medicao.marcar("primeiroQuadro");
+                medicao.registrar(ARQUIVO_INICIALIZACAO);
+            }
+        });
         primaryStage.setTitle("Gerenciador de Produtos");
         primaryStage.setScene(scene);
         primaryStage.show();
     }
 
+    private void falhaNaAbertura(Throwable erro) {
+        erro.printStackTrace();
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Erro");
+        alert.setHeaderText(null);
+        alert.setContentText("Não foi possível carregar o catálogo: " + erro.getMessage());
+        alert.showAndWait();
+        Platform.exit();
+    }
+
+    @Override
+    public void stop() {
+        if (produtoService != null) {
+            produtoService.fechar();
+        }
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+package org.suaempresa.mainApp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Tempos da abertura em milissegundos desde o início do processo (inclui a subida
+// da JVM), gravados uma linha por execução para comparar instalações e versões
+final class MedicaoInicializacao {
+    private final Instant inicioProcesso = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+    private final Map<String, Long> etapas = new LinkedHashMap<>();
+
+    void marcar(String etapa) {
+        etapas.put(etapa, Duration.between(inicioProcesso, Instant.now()).toMillis());
+    }
+
+    // Ex.: 2026-10-18T09:12:03;start=412;janela=655;catalogo=1830;primeiroQuadro=1902
+    void registrar(Path arquivo) {
+        StringBuilder linha = new StringBuilder(LocalDateTime.now().withNano(0).toString());
+        etapas.forEach((etapa, ms) -> linha.append(';').append(etapa).append('=').append(ms));
+        try {
+            Files.writeString(arquivo, linha + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
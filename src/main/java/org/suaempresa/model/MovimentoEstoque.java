@@ -0,0 +1,24 @@
+package org.suaempresa.model;
+
+import java.io.Serializable;
+
+// Entrada (quantidade positiva) ou saída (negativa) de estoque de um produto
+public class MovimentoEstoque implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String codigo;
+    private final int quantidade;
+
+    public MovimentoEstoque(String codigo, int quantidade) {
+        this.codigo = codigo;
+        this.quantidade = quantidade;
+    }
+
+    public String getCodigo() { return codigo; }
+    public int getQuantidade() { return quantidade; }
+
+    @Override
+    public String toString() {
+        return codigo + ";" + quantidade;
+    }
+}
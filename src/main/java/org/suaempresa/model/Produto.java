@@ -2,9 +2,17 @@ package org.suaempresa.model;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Produto implements Serializable {
+    // Casas decimais da margem em pontos percentuais. A divisão em geral não termina
+    // (compra 3,00 e venda 4,00 dão 33,333...%), então a margem é arredondada uma única
+    // vez, aqui; somas e médias por categoria partem desses valores sem novos arredondamentos.
+    public static final int ESCALA_MARGEM = 10;
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
     private String codigo;
     private String nome;
     private String descricao;
@@ -12,8 +20,12 @@ public class Produto implements Serializable {
     private LocalDate dataValidade;
     private BigDecimal precoCompra;
     private BigDecimal precoVenda;
-    private int quantidadeEstoque;
+    // Quantidade nos 32 bits baixos e versão nos 32 altos, trocados juntos por CAS
+    // nas movimentações de estoque (ver EstoqueVersionado no pacote service)
+    private final AtomicLong estoque;
     private Categoria categoria;
+    // Margem calculada na primeira leitura e descartada quando um preço muda
+    private transient BigDecimal margem;
 
     public Produto(String codigo, String nome, String descricao, LocalDate dataFabricacao,
                    LocalDate dataValidade, BigDecimal precoCompra, BigDecimal precoVenda,
@@ -25,7 +37,7 @@ public class Produto implements Serializable {
         this.dataValidade = dataValidade;
         this.precoCompra = precoCompra;
         this.precoVenda = precoVenda;
-        this.quantidadeEstoque = quantidadeEstoque;
+        this.estoque = new AtomicLong(Integer.toUnsignedLong(quantidadeEstoque));
         this.categoria = categoria;
     }
 
@@ -41,18 +53,39 @@ public class Produto implements Serializable {
     public LocalDate getDataValidade() { return dataValidade; }
     public void setDataValidade(LocalDate dataValidade) { this.dataValidade = dataValidade; }
     public BigDecimal getPrecoCompra() { return precoCompra; }
-    public void setPrecoCompra(BigDecimal precoCompra) { this.precoCompra = precoCompra; }
+    public void setPrecoCompra(BigDecimal precoCompra) { this.precoCompra = precoCompra; this.margem = null; }
     public BigDecimal getPrecoVenda() { return precoVenda; }
-    public void setPrecoVenda(BigDecimal precoVenda) { this.precoVenda = precoVenda; }
-    public int getQuantidadeEstoque() { return quantidadeEstoque; }
-    public void setQuantidadeEstoque(int quantidadeEstoque) { this.quantidadeEstoque = quantidadeEstoque; }
+    public void setPrecoVenda(BigDecimal precoVenda) { this.precoVenda = precoVenda; this.margem = null; }
+    public int getQuantidadeEstoque() { return (int) estoque.get(); }
+    public void setQuantidadeEstoque(int quantidadeEstoque) {
+        long atual;
+        do {
+            atual = estoque.get();
+        } while (!estoque.compareAndSet(atual, ((atual >>> 32) + 1 << 32) | Integer.toUnsignedLong(quantidadeEstoque)));
+    }
+    public long getEstoqueVersionado() { return estoque.get(); }
+    public boolean compareAndSetEstoque(long esperado, long novo) { return estoque.compareAndSet(esperado, novo); }
     public Categoria getCategoria() { return categoria; }
     public void setCategoria(Categoria categoria) { this.categoria = categoria; }
 
+    // (venda - compra) / compra em pontos percentuais, com ESCALA_MARGEM casas
+    public BigDecimal getMargem() {
+        BigDecimal calculada = margem;
+        if (calculada == null) {
+            calculada = calcularMargem(precoCompra, precoVenda);
+            margem = calculada;
+        }
+        return calculada;
+    }
+
+    public static BigDecimal calcularMargem(BigDecimal compra, BigDecimal venda) {
+        return venda.subtract(compra).multiply(CEM).divide(compra, ESCALA_MARGEM, RoundingMode.HALF_EVEN);
+    }
+
     @Override
     public String toString() {
         return codigo + ";" + nome + ";" + descricao + ";" + dataFabricacao + ";" +
                 dataValidade + ";" + precoCompra + ";" + precoVenda + ";" +
-                quantidadeEstoque + ";" + categoria.getId();
+                getQuantidadeEstoque() + ";" + categoria.getId();
     }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Estado do catálogo em memória por trás do ProdutoService: produtos na ordem de
+// inserção e os índices usados pelas consultas e relatórios. O serviço cuida do
+// bloqueio: alterações rodam sob o bloqueio de escrita e leituras sob o de leitura,
+// com exceção das movimentações de estoque, que também rodam sob o de leitura.
+interface ArmazenamentoProdutos {
+    Produto buscar(String codigo);
+
+    boolean contem(String codigo);
+
+    // Upsert: um código já existente mantém sua posição na listagem
+    void salvar(Produto produto);
+
+    boolean remover(String codigo);
+
+    int tamanho();
+
+    List<Produto> todos();
+
+    List<Produto> pagina(int inicio, int quantidade);
+
+    // Posição na listagem, ou -1 se não existir
+    int posicao(String codigo);
+
+    // Quantidade em estoque, ou -1 se o produto não existir
+    int quantidadeEstoque(String codigo);
+
+    // Soma a quantidade ao estoque e devolve o estoque versionado resultante
+    long movimentarEstoque(String codigo, int quantidade);
+
+    // Reaplicação do journal: só vale se a versão for mais nova que a atual
+    boolean aplicarEstoque(String codigo, long estoque);
+
+    // Produtos que atendem ao critério, na ordem do índice ou da varredura usada
+    List<Produto> filtrar(Criterio criterio);
+
+    // Por nome de categoria: soma das margens em pontos percentuais e quantidade de produtos.
+    // Somas exatas, e não médias, para que catálogos diferentes possam ser combinados.
+    Map<String, SomaMargem> somaMargemPorCategoria();
+
+    // Por nome de categoria: os "limite" produtos de maior e de menor margem
+    Map<String, ExtremosMargem> extremosMargemPorCategoria(int limite);
+
+    // Cópia do estado atual para gravar o snapshot em segundo plano; continua válida
+    // enquanto o armazenamento é alterado
+    Collection<Produto> copia();
+}
@@ -0,0 +1,117 @@
+package org.suaempresa.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Assinante que acrescenta cada evento como uma linha (EventoCatalogo.toString()) ao
+// fim de um arquivo, para que outros processos, como o cálculo de preços, acompanhem
+// as alterações lendo o arquivo enquanto ele cresce. Cada linha é gravada com flush,
+// então quem lê nunca vê uma linha pela metade além da última.
+//
+// Não perde eventos (ver PublicadorEventos.SemPerdas): onNext só põe o evento numa fila
+// sem limite, esvaziada por uma thread própria. Se o disco ficar para trás, a fila
+// cresce em vez de descartar; no fechamento do serviço, onComplete espera a fila acabar.
+//
+// Falhas de gravação contam como falhas de persistência nas métricas recebidas.
+public class ArquivoEventos implements PublicadorEventos.SemPerdas {
+    private static final System.Logger LOG = System.getLogger(ArquivoEventos.class.getName());
+    // Marca o fim da fila para a thread de gravação
+    private static final EventoCatalogo FIM = new EventoCatalogo(-1, null, null, null, null, -1, 0, 0);
+
+    private final Path arquivo;
+    private final MetricasProdutos metricas;
+    private final BlockingQueue<EventoCatalogo> fila = new LinkedBlockingQueue<>();
+    private BufferedWriter writer;
+    private Flow.Subscription assinatura;
+    private Thread gravacao;
+
+    public ArquivoEventos(Path arquivo) {
+        this(arquivo, new MetricasProdutos());
+    }
+
+    public ArquivoEventos(Path arquivo, MetricasProdutos metricas) {
+        this.arquivo = arquivo;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription assinatura) {
+        try {
+            writer = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            metricas.falhaPersistencia(e);
+            assinatura.cancel();
+            return;
+        }
+        this.assinatura = assinatura;
+        gravacao = new Thread(this::gravar, "arquivo-eventos");
+        gravacao.setDaemon(true);
+        gravacao.start();
+    }
+
+    @Override
+    public void onNext(EventoCatalogo evento) {
+        fila.add(evento);
+    }
+
+    @Override
+    public void onError(Throwable erro) {
+        LOG.log(System.Logger.Level.ERROR, "Publicação de eventos interrompida", erro);
+        encerrar();
+    }
+
+    @Override
+    public void onComplete() {
+        encerrar();
+    }
+
+    private void gravar() {
+        try {
+            for (EventoCatalogo evento = fila.take(); evento != FIM; evento = fila.take()) {
+                writer.write(evento.toString());
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (IOException e) {
+            metricas.falhaPersistencia(e);
+            assinatura.cancel();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            fila.clear();
+            fechar();
+        }
+    }
+
+    // Espera a thread gravar o que já estava na fila
+    private void encerrar() {
+        if (gravacao == null) {
+            return;
+        }
+        fila.add(FIM);
+        try {
+            gravacao.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fechar() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            metricas.falhaPersistencia(e);
+        }
+    }
+}
@@ -0,0 +1,725 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Armazenamento colunar: cada campo do produto fica em um array primitivo indexado
+// pela linha, e objetos Produto só são criados quando alguém os pede (tabela,
+// consulta, relatórios). Preços são guardados como valor sem escala + escala, datas
+// como dia desde a época, nome e descrição codificados em um dicionário de strings.
+// Os relatórios e os filtros são laços sobre as colunas, sem índices auxiliares por produto.
+//
+// Uma exclusão só marca a linha como removida (código nulo); as linhas são
+// reorganizadas quando metade delas estiver removida.
+class CatalogoColunar implements ArmazenamentoProdutos {
+    private static final int CAPACIDADE_INICIAL = 1024;
+    // Escala que marca um preço fora do alcance de long/byte; o valor fica em decimaisGrandes
+    private static final byte ESCALA_GRANDE = Byte.MIN_VALUE;
+    // Margem fora do alcance de long na coluna de margens: é recalculada dos preços
+    private static final long MARGEM_GRANDE = Long.MIN_VALUE;
+
+    private final TabelaCategorias tabela;
+    private final Dicionario dicionario;
+    private final IndiceAberto indice = new IndiceAberto();
+
+    private int linhas;
+    private int removidas;
+    // Linhas vivas por prefixo, para a paginação e a posição sem percorrer desde o início
+    private ContagemLinhas vivas;
+    private String[] codigos;
+    private int[] nomes;
+    private int[] descricoes;
+    private int[] fabricacao;
+    private int[] validade;
+    private long[] compra;
+    private long[] venda;
+    private byte[] escalaCompra;
+    private byte[] escalaVenda;
+    // Margem sem escala (Produto.ESCALA_MARGEM casas), calculada quando os preços são gravados
+    private long[] margens;
+    private int[] categorias;
+    // Estoque versionado (ver EstoqueVersionado), trocado por CAS nas movimentações
+    private AtomicLongArray estoque;
+    // Chave: linha * 2 (compra) ou linha * 2 + 1 (venda)
+    private Map<Integer, BigDecimal> decimaisGrandes = new HashMap<>();
+
+    CatalogoColunar(TabelaCategorias tabela) {
+        this.tabela = tabela;
+        this.dicionario = new Dicionario();
+        alocar(CAPACIDADE_INICIAL);
+    }
+
+    // Cópia somente-leitura com as linhas vivas; o dicionário reaproveita posições
+    // liberadas, então a cópia leva o seu próprio array de valores
+    private CatalogoColunar(CatalogoColunar origem) {
+        this.tabela = origem.tabela;
+        this.dicionario = origem.dicionario.congelar();
+        origem.copiarLinhasVivas(this, Math.max(1, origem.linhas - origem.removidas));
+    }
+
+    private void alocar(int capacidade) {
+        codigos = new String[capacidade];
+        nomes = new int[capacidade];
+        descricoes = new int[capacidade];
+        fabricacao = new int[capacidade];
+        validade = new int[capacidade];
+        compra = new long[capacidade];
+        venda = new long[capacidade];
+        escalaCompra = new byte[capacidade];
+        escalaVenda = new byte[capacidade];
+        margens = new long[capacidade];
+        categorias = new int[capacidade];
+        estoque = new AtomicLongArray(capacidade);
+        vivas = new ContagemLinhas(capacidade);
+    }
+
+    @Override
+    public Produto buscar(String codigo) {
+        int linha = indice.buscar(codigos, codigo);
+        return linha < 0 ? null : produto(linha);
+    }
+
+    @Override
+    public boolean contem(String codigo) {
+        return indice.buscar(codigos, codigo) >= 0;
+    }
+
+    @Override
+    public void salvar(Produto produto) {
+        int linha = indice.buscar(codigos, produto.getCodigo());
+        boolean nova = linha < 0;
+        if (nova) {
+            if (linhas == codigos.length) {
+                crescer();
+            }
+            linha = linhas++;
+            codigos[linha] = produto.getCodigo();
+            indice.inserir(codigos, linha);
+            vivas.alterar(linha, 1);
+        }
+        // Os textos novos são codificados antes de soltar os anteriores, para que um
+        // texto mantido não saia e volte ao dicionário
+        int nome = dicionario.codificar(produto.getNome());
+        int descricao = dicionario.codificar(produto.getDescricao());
+        if (!nova) {
+            dicionario.liberar(nomes[linha]);
+            dicionario.liberar(descricoes[linha]);
+        }
+        nomes[linha] = nome;
+        descricoes[linha] = descricao;
+        fabricacao[linha] = diaDaEpoca(produto.getDataFabricacao());
+        validade[linha] = diaDaEpoca(produto.getDataValidade());
+        escalaCompra[linha] = gravarPreco(compra, linha, 0, produto.getPrecoCompra());
+        escalaVenda[linha] = gravarPreco(venda, linha, 1, produto.getPrecoVenda());
+        margens[linha] = margemSemEscala(produto.getMargem());
+        categorias[linha] = tabela.buscar(produto.getCategoria().getId()).getId();
+        estoque.set(linha, produto.getEstoqueVersionado());
+    }
+
+    @Override
+    public boolean remover(String codigo) {
+        int linha = indice.buscar(codigos, codigo);
+        if (linha < 0) {
+            return false;
+        }
+        indice.remover(codigos, codigo);
+        codigos[linha] = null;
+        vivas.alterar(linha, -1);
+        dicionario.liberar(nomes[linha]);
+        dicionario.liberar(descricoes[linha]);
+        decimaisGrandes.remove(linha * 2);
+        decimaisGrandes.remove(linha * 2 + 1);
+        removidas++;
+        if (removidas > CAPACIDADE_INICIAL && removidas * 2 > linhas) {
+            copiarLinhasVivas(this, Math.max(CAPACIDADE_INICIAL, (linhas - removidas) * 2));
+        }
+        return true;
+    }
+
+    @Override
+    public int tamanho() {
+        return linhas - removidas;
+    }
+
+    @Override
+    public List<Produto> todos() {
+        return pagina(0, tamanho());
+    }
+
+    // A primeira linha da página vem da contagem de vivas; daí em diante só os buracos
+    // dentro da página são pulados (a reorganização limita os buracos à metade das linhas)
+    @Override
+    public List<Produto> pagina(int inicio, int quantidade) {
+        List<Produto> pagina = new ArrayList<>(Math.max(0, Math.min(quantidade, tamanho() - inicio)));
+        if (inicio >= tamanho()) {
+            return pagina;
+        }
+        for (int linha = vivas.linha(Math.max(0, inicio)); linha < linhas && pagina.size() < quantidade; linha++) {
+            if (codigos[linha] != null) {
+                pagina.add(produto(linha));
+            }
+        }
+        return pagina;
+    }
+
+    @Override
+    public int posicao(String codigo) {
+        int linha = indice.buscar(codigos, codigo);
+        return linha < 0 ? -1 : vivas.antes(linha);
+    }
+
+    @Override
+    public int quantidadeEstoque(String codigo) {
+        int linha = indice.buscar(codigos, codigo);
+        return linha < 0 ? -1 : EstoqueVersionado.quantidade(estoque.get(linha));
+    }
+
+    @Override
+    public long movimentarEstoque(String codigo, int quantidade) {
+        int linha = indice.buscar(codigos, codigo);
+        if (linha < 0) {
+            throw new IllegalArgumentException("Produto não encontrado: " + codigo + ".");
+        }
+        while (true) {
+            long atual = estoque.get(linha);
+            long novo = EstoqueVersionado.somar(atual, quantidade, codigo);
+            if (estoque.compareAndSet(linha, atual, novo)) {
+                return novo;
+            }
+        }
+    }
+
+    @Override
+    public boolean aplicarEstoque(String codigo, long registro) {
+        int linha = indice.buscar(codigos, codigo);
+        if (linha < 0) {
+            return false;
+        }
+        while (true) {
+            long atual = estoque.get(linha);
+            if (Integer.compareUnsigned(EstoqueVersionado.versao(registro), EstoqueVersionado.versao(atual)) <= 0) {
+                return false;
+            }
+            if (estoque.compareAndSet(linha, atual, registro)) {
+                return true;
+            }
+        }
+    }
+
+    // Cada condição simples é um laço sobre a sua coluna que só visita as linhas ainda
+    // candidatas (um BitSet); E estreita as candidatas condição a condição, OU junta
+    // os resultados. Só as linhas aceitas viram Produto, na ordem das linhas.
+    @Override
+    public List<Produto> filtrar(Criterio criterio) {
+        BitSet vivas = new BitSet(linhas);
+        for (int linha = 0; linha < linhas; linha++) {
+            if (codigos[linha] != null) {
+                vivas.set(linha);
+            }
+        }
+        BitSet aceitas = linhas(criterio, vivas);
+        List<Produto> resultado = new ArrayList<>(aceitas.cardinality());
+        for (int linha = aceitas.nextSetBit(0); linha >= 0; linha = aceitas.nextSetBit(linha + 1)) {
+            resultado.add(produto(linha));
+        }
+        return resultado;
+    }
+
+    // Subconjunto das candidatas aceito pelo critério; as candidatas não são alteradas
+    private BitSet linhas(Criterio criterio, BitSet candidatas) {
+        if (criterio instanceof Criterio.E e) {
+            BitSet restantes = candidatas;
+            for (Criterio c : e.criterios) {
+                restantes = linhas(c, restantes);
+            }
+            return restantes;
+        }
+        if (criterio instanceof Criterio.Ou ou) {
+            BitSet aceitas = new BitSet(linhas);
+            BitSet pendentes = (BitSet) candidatas.clone();
+            for (Criterio c : ou.criterios) {
+                BitSet novas = linhas(c, pendentes);
+                aceitas.or(novas);
+                pendentes.andNot(novas);
+            }
+            return aceitas;
+        }
+        BitSet aceitas = new BitSet(linhas);
+        if (criterio instanceof Criterio.PorValidade v) {
+            long de = v.inicio == null ? Long.MIN_VALUE : v.inicio.toEpochDay();
+            long ate = v.fim == null ? Long.MAX_VALUE : v.fim.toEpochDay();
+            for (int linha = candidatas.nextSetBit(0); linha >= 0; linha = candidatas.nextSetBit(linha + 1)) {
+                if (validade[linha] >= de && validade[linha] < ate) {
+                    aceitas.set(linha);
+                }
+            }
+        } else if (criterio instanceof Criterio.PorEstoque e) {
+            for (int linha = candidatas.nextSetBit(0); linha >= 0; linha = candidatas.nextSetBit(linha + 1)) {
+                int quantidade = EstoqueVersionado.quantidade(estoque.get(linha));
+                if (quantidade >= e.minimo && quantidade <= e.maximo) {
+                    aceitas.set(linha);
+                }
+            }
+        } else if (criterio instanceof Criterio.PorCategoria || criterio instanceof Criterio.PorSetor) {
+            // A condição é resolvida uma vez por id de categoria, não por linha
+            boolean[] ids = new boolean[tabela.limiteIds()];
+            for (int id = 0; id < ids.length; id++) {
+                Categoria categoria = tabela.buscar(id);
+                ids[id] = categoria != null && categoria.getId() == id && (criterio instanceof Criterio.PorCategoria c
+                        ? categoria.getNome().equals(c.nome)
+                        : categoria.getSetor().equals(((Criterio.PorSetor) criterio).setor));
+            }
+            for (int linha = candidatas.nextSetBit(0); linha >= 0; linha = candidatas.nextSetBit(linha + 1)) {
+                if (ids[categorias[linha]]) {
+                    aceitas.set(linha);
+                }
+            }
+        } else if (criterio instanceof Criterio.PorPrecoVenda p) {
+            FaixaPreco faixa = new FaixaPreco(p);
+            for (int linha = candidatas.nextSetBit(0); linha >= 0; linha = candidatas.nextSetBit(linha + 1)) {
+                boolean dentro = escalaVenda[linha] == ESCALA_GRANDE
+                        ? p.aceitaPreco(lerPreco(venda, escalaVenda, linha, 1))
+                        : faixa.contem(venda[linha], escalaVenda[linha]);
+                if (dentro) {
+                    aceitas.set(linha);
+                }
+            }
+        } else if (criterio instanceof Criterio.PorMargem m) {
+            for (int linha = candidatas.nextSetBit(0); linha >= 0; linha = candidatas.nextSetBit(linha + 1)) {
+                boolean dentro = margens[linha] == MARGEM_GRANDE
+                        ? m.aceitaMargem(margem(linha))
+                        : m.aceitaSemEscala(margens[linha]);
+                if (dentro) {
+                    aceitas.set(linha);
+                }
+            }
+        } else {
+            for (int linha = candidatas.nextSetBit(0); linha >= 0; linha = candidatas.nextSetBit(linha + 1)) {
+                if (criterio.aceita(produto(linha))) {
+                    aceitas.set(linha);
+                }
+            }
+        }
+        return aceitas;
+    }
+
+    // Soma por id de categoria sobre a coluna de margens; o agrupamento por nome só
+    // acontece no fim, sobre as poucas categorias
+    @Override
+    public Map<String, SomaMargem> somaMargemPorCategoria() {
+        SomaMargem[] somas = new SomaMargem[tabela.limiteIds()];
+        for (int linha = 0; linha < linhas; linha++) {
+            if (codigos[linha] != null) {
+                int categoria = categorias[linha];
+                if (somas[categoria] == null) {
+                    somas[categoria] = new SomaMargem();
+                }
+                if (margens[linha] == MARGEM_GRANDE) {
+                    somas[categoria].adicionar(margem(linha));
+                } else {
+                    somas[categoria].adicionar(margens[linha]);
+                }
+            }
+        }
+        Map<String, SomaMargem> porNome = new HashMap<>();
+        for (int id = 0; id < somas.length; id++) {
+            if (somas[id] != null) {
+                porNome.computeIfAbsent(tabela.buscar(id).getNome(), k -> new SomaMargem()).combinar(somas[id]);
+            }
+        }
+        return porNome;
+    }
+
+    // Um heap por id de categoria; a linha só vira Produto se for entrar em um deles
+    @Override
+    public Map<String, ExtremosMargem> extremosMargemPorCategoria(int limite) {
+        ExtremosMargem[] extremos = new ExtremosMargem[tabela.limiteIds()];
+        for (int linha = 0; linha < linhas; linha++) {
+            if (codigos[linha] != null) {
+                int categoria = categorias[linha];
+                if (extremos[categoria] == null) {
+                    extremos[categoria] = new ExtremosMargem(limite);
+                }
+                if (extremos[categoria].entraria(margem(linha), codigos[linha])) {
+                    extremos[categoria].oferecer(produto(linha));
+                }
+            }
+        }
+        Map<String, ExtremosMargem> porNome = new HashMap<>();
+        for (int id = 0; id < extremos.length; id++) {
+            if (extremos[id] != null) {
+                porNome.computeIfAbsent(tabela.buscar(id).getNome(), k -> new ExtremosMargem(limite)).combinar(extremos[id]);
+            }
+        }
+        return porNome;
+    }
+
+    // Strings distintas guardadas no dicionário de nome e descrição
+    int textosNoDicionario() {
+        return dicionario.quantidade();
+    }
+
+    // Cópia das colunas (sem objetos Produto); os produtos são criados um a um
+    // enquanto o snapshot é gravado
+    @Override
+    public Collection<Produto> copia() {
+        CatalogoColunar copia = new CatalogoColunar(this);
+        return new AbstractList<>() {
+            @Override
+            public Produto get(int indice) {
+                return copia.produto(indice);
+            }
+
+            @Override
+            public int size() {
+                return copia.linhas;
+            }
+        };
+    }
+
+    private Produto produto(int linha) {
+        Categoria categoria = tabela.buscar(categorias[linha]);
+        Produto produto = new Produto(
+                codigos[linha],
+                dicionario.valor(nomes[linha]),
+                dicionario.valor(descricoes[linha]),
+                LocalDate.ofEpochDay(fabricacao[linha]),
+                LocalDate.ofEpochDay(validade[linha]),
+                lerPreco(compra, escalaCompra, linha, 0),
+                lerPreco(venda, escalaVenda, linha, 1),
+                0,
+                categoria);
+        // Quantidade junto com a versão, como no armazenamento por objetos
+        produto.compareAndSetEstoque(0, estoque.get(linha));
+        return produto;
+    }
+
+    // Mesmo valor de Produto.getMargem, lido da coluna
+    private BigDecimal margem(int linha) {
+        if (margens[linha] == MARGEM_GRANDE) {
+            return Produto.calcularMargem(lerPreco(compra, escalaCompra, linha, 0), lerPreco(venda, escalaVenda, linha, 1));
+        }
+        return BigDecimal.valueOf(margens[linha], Produto.ESCALA_MARGEM);
+    }
+
+    // Long.MIN_VALUE e Long.MAX_VALUE também ficam de fora, para que os limites de
+    // Criterio.PorMargem, limitados a esse alcance, continuem exatos na comparação em long
+    private static long margemSemEscala(BigDecimal margem) {
+        BigInteger semEscala = margem.unscaledValue();
+        if (semEscala.bitLength() >= 64 || semEscala.longValue() == Long.MAX_VALUE) {
+            return MARGEM_GRANDE;
+        }
+        return semEscala.longValue();
+    }
+
+    private byte gravarPreco(long[] coluna, int linha, int lado, BigDecimal preco) {
+        decimaisGrandes.remove(linha * 2 + lado);
+        if (preco.scale() > ESCALA_GRANDE && preco.scale() <= Byte.MAX_VALUE && preco.unscaledValue().bitLength() < 64) {
+            coluna[linha] = preco.unscaledValue().longValue();
+            return (byte) preco.scale();
+        }
+        decimaisGrandes.put(linha * 2 + lado, preco);
+        return ESCALA_GRANDE;
+    }
+
+    private BigDecimal lerPreco(long[] coluna, byte[] escalas, int linha, int lado) {
+        if (escalas[linha] == ESCALA_GRANDE) {
+            return decimaisGrandes.get(linha * 2 + lado);
+        }
+        return BigDecimal.valueOf(coluna[linha], escalas[linha]);
+    }
+
+    private static int diaDaEpoca(LocalDate data) {
+        long dia = data.toEpochDay();
+        if (dia < Integer.MIN_VALUE || dia > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Data fora do intervalo suportado: " + data + ".");
+        }
+        return (int) dia;
+    }
+
+    private void crescer() {
+        int capacidade = codigos.length * 2;
+        codigos = Arrays.copyOf(codigos, capacidade);
+        nomes = Arrays.copyOf(nomes, capacidade);
+        descricoes = Arrays.copyOf(descricoes, capacidade);
+        fabricacao = Arrays.copyOf(fabricacao, capacidade);
+        validade = Arrays.copyOf(validade, capacidade);
+        compra = Arrays.copyOf(compra, capacidade);
+        venda = Arrays.copyOf(venda, capacidade);
+        escalaCompra = Arrays.copyOf(escalaCompra, capacidade);
+        escalaVenda = Arrays.copyOf(escalaVenda, capacidade);
+        margens = Arrays.copyOf(margens, capacidade);
+        categorias = Arrays.copyOf(categorias, capacidade);
+        vivas.crescer(capacidade);
+        AtomicLongArray novoEstoque = new AtomicLongArray(capacidade);
+        for (int i = 0; i < linhas; i++) {
+            novoEstoque.set(i, estoque.get(i));
+        }
+        estoque = novoEstoque;
+    }
+
+    // Copia as linhas vivas, na mesma ordem, para arrays novos no destino (que pode
+    // ser este mesmo catálogo, na reorganização após muitas exclusões)
+    private void copiarLinhasVivas(CatalogoColunar destino, int capacidade) {
+        String[] codigosOrigem = codigos;
+        int[] nomesOrigem = nomes;
+        int[] descricoesOrigem = descricoes;
+        int[] fabricacaoOrigem = fabricacao;
+        int[] validadeOrigem = validade;
+        long[] compraOrigem = compra;
+        long[] vendaOrigem = venda;
+        byte[] escalaCompraOrigem = escalaCompra;
+        byte[] escalaVendaOrigem = escalaVenda;
+        long[] margensOrigem = margens;
+        int[] categoriasOrigem = categorias;
+        AtomicLongArray estoqueOrigem = estoque;
+        Map<Integer, BigDecimal> grandesOrigem = decimaisGrandes;
+        int linhasOrigem = linhas;
+
+        destino.alocar(capacidade);
+        destino.decimaisGrandes = new HashMap<>();
+        int linha = 0;
+        for (int i = 0; i < linhasOrigem; i++) {
+            if (codigosOrigem[i] == null) {
+                continue;
+            }
+            destino.codigos[linha] = codigosOrigem[i];
+            destino.nomes[linha] = nomesOrigem[i];
+            destino.descricoes[linha] = descricoesOrigem[i];
+            destino.fabricacao[linha] = fabricacaoOrigem[i];
+            destino.validade[linha] = validadeOrigem[i];
+            destino.compra[linha] = compraOrigem[i];
+            destino.venda[linha] = vendaOrigem[i];
+            destino.escalaCompra[linha] = escalaCompraOrigem[i];
+            destino.escalaVenda[linha] = escalaVendaOrigem[i];
+            destino.margens[linha] = margensOrigem[i];
+            destino.categorias[linha] = categoriasOrigem[i];
+            destino.estoque.set(linha, estoqueOrigem.get(i));
+            for (int lado = 0; lado < 2; lado++) {
+                BigDecimal grande = grandesOrigem.get(i * 2 + lado);
+                if (grande != null) {
+                    destino.decimaisGrandes.put(linha * 2 + lado, grande);
+                }
+            }
+            linha++;
+        }
+        destino.linhas = linha;
+        destino.removidas = 0;
+        destino.vivas = ContagemLinhas.todasVivas(linha, capacidade);
+        if (destino == this) {
+            indice.reconstruir(codigos, linhas);
+        }
+    }
+
+    // Limites de um intervalo de preço convertidos, por escala, para a mesma unidade
+    // dos valores sem escala da coluna; assim a comparação por linha é entre longs
+    private static final class FaixaPreco {
+        private final Criterio.PorPrecoVenda criterio;
+        private final long[] minimos = new long[256];
+        private final long[] maximos = new long[256];
+        // 0 = escala ainda não convertida, 1 = limites em long, 2 = comparar em BigDecimal
+        private final byte[] estados = new byte[256];
+
+        FaixaPreco(Criterio.PorPrecoVenda criterio) {
+            this.criterio = criterio;
+        }
+
+        boolean contem(long valor, byte escala) {
+            int i = escala - Byte.MIN_VALUE;
+            if (estados[i] == 0) {
+                converter(escala, i);
+            }
+            if (estados[i] == 2) {
+                return criterio.aceitaPreco(BigDecimal.valueOf(valor, escala));
+            }
+            return valor >= minimos[i] && valor <= maximos[i];
+        }
+
+        private void converter(byte escala, int i) {
+            try {
+                minimos[i] = criterio.minimo == null ? Long.MIN_VALUE
+                        : criterio.minimo.movePointRight(escala).setScale(0, RoundingMode.CEILING).longValueExact();
+                maximos[i] = criterio.maximo == null ? Long.MAX_VALUE
+                        : criterio.maximo.movePointRight(escala).setScale(0, RoundingMode.FLOOR).longValueExact();
+                estados[i] = 1;
+            } catch (ArithmeticException e) {
+                estados[i] = 2;
+            }
+        }
+    }
+
+    // Strings distintas em um array, cada uma guardada uma única vez; -1 representa null.
+    // Cada posição conta as linhas que a usam: quando nenhuma usa mais, a string é
+    // solta e a posição volta para a lista de livres, reaproveitada pelo próximo texto.
+    private static final class Dicionario {
+        private final IndiceAberto indice;
+        private String[] valores;
+        private int[] referencias;
+        private int tamanho;
+        private int[] livres;
+        private int quantidadeLivres;
+
+        Dicionario() {
+            this.indice = new IndiceAberto();
+            this.valores = new String[CAPACIDADE_INICIAL];
+            this.referencias = new int[CAPACIDADE_INICIAL];
+            this.livres = new int[16];
+        }
+
+        private Dicionario(String[] valores, int tamanho) {
+            this.indice = null;
+            this.valores = valores;
+            this.tamanho = tamanho;
+        }
+
+        int codificar(String valor) {
+            if (valor == null) {
+                return -1;
+            }
+            int posicao = indice.buscar(valores, valor);
+            if (posicao < 0) {
+                if (quantidadeLivres > 0) {
+                    posicao = livres[--quantidadeLivres];
+                } else {
+                    if (tamanho == valores.length) {
+                        valores = Arrays.copyOf(valores, tamanho * 2);
+                        referencias = Arrays.copyOf(referencias, tamanho * 2);
+                    }
+                    posicao = tamanho++;
+                }
+                valores[posicao] = valor;
+                indice.inserir(valores, posicao);
+            }
+            referencias[posicao]++;
+            return posicao;
+        }
+
+        void liberar(int posicao) {
+            if (posicao < 0 || --referencias[posicao] > 0) {
+                return;
+            }
+            indice.remover(valores, valores[posicao]);
+            valores[posicao] = null;
+            if (quantidadeLivres == livres.length) {
+                livres = Arrays.copyOf(livres, quantidadeLivres * 2);
+            }
+            livres[quantidadeLivres++] = posicao;
+        }
+
+        String valor(int posicao) {
+            return posicao < 0 ? null : valores[posicao];
+        }
+
+        // Quantidade de strings guardadas (posições em uso)
+        int quantidade() {
+            return tamanho - quantidadeLivres;
+        }
+
+        // Cópia somente-leitura das strings já codificadas; as posições liberadas
+        // depois disso podem ser reescritas no original
+        Dicionario congelar() {
+            return new Dicionario(Arrays.copyOf(valores, tamanho), tamanho);
+        }
+    }
+
+    // Tabela hash de endereçamento aberto (sondagem linear) que guarda só posições
+    // de um array de strings: um int por entrada, sem objetos de entrada nem Integer
+    private static final class IndiceAberto {
+        private int[] slots = new int[16]; // posição + 1; 0 = vazio
+        private int ocupados;
+
+        int buscar(String[] chaves, String chave) {
+            int mascara = slots.length - 1;
+            for (int i = inicio(chave, mascara); ; i = (i + 1) & mascara) {
+                int slot = slots[i];
+                if (slot == 0) {
+                    return -1;
+                }
+                if (chaves[slot - 1].equals(chave)) {
+                    return slot - 1;
+                }
+            }
+        }
+
+        // A posição ainda não pode estar no índice
+        void inserir(String[] chaves, int posicao) {
+            if ((ocupados + 1) * 2 > slots.length) {
+                redimensionar(chaves, slots.length * 2);
+            }
+            int mascara = slots.length - 1;
+            int i = inicio(chaves[posicao], mascara);
+            while (slots[i] != 0) {
+                i = (i + 1) & mascara;
+            }
+            slots[i] = posicao + 1;
+            ocupados++;
+        }
+
+        // Remoção com deslocamento para trás, para que nenhuma sequência de sondagem
+        // fique interrompida
+        void remover(String[] chaves, String chave) {
+            int mascara = slots.length - 1;
+            int i = inicio(chave, mascara);
+            while (!chaves[slots[i] - 1].equals(chave)) {
+                i = (i + 1) & mascara;
+            }
+            slots[i] = 0;
+            ocupados--;
+            for (int j = (i + 1) & mascara; slots[j] != 0; j = (j + 1) & mascara) {
+                int ideal = inicio(chaves[slots[j] - 1], mascara);
+                boolean podeMover = i <= j ? (ideal <= i || ideal > j) : (ideal <= i && ideal > j);
+                if (podeMover) {
+                    slots[i] = slots[j];
+                    slots[j] = 0;
+                    i = j;
+                }
+            }
+        }
+
+        void reconstruir(String[] chaves, int quantidade) {
+            int capacidade = 16;
+            while (capacidade < quantidade * 2) {
+                capacidade *= 2;
+            }
+            slots = new int[capacidade];
+            ocupados = 0;
+            for (int posicao = 0; posicao < quantidade; posicao++) {
+                inserir(chaves, posicao);
+            }
+        }
+
+        private void redimensionar(String[] chaves, int capacidade) {
+            int[] anteriores = slots;
+            slots = new int[capacidade];
+            int mascara = capacidade - 1;
+            for (int slot : anteriores) {
+                if (slot != 0) {
+                    int i = inicio(chaves[slot - 1], mascara);
+                    while (slots[i] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    slots[i] = slot;
+                }
+            }
+        }
+
+        private static int inicio(String chave, int mascara) {
+            int h = chave.hashCode() * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mascara;
+        }
+    }
+}
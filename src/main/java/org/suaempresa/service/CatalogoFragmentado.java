@@ -0,0 +1,348 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Vários catálogos (fragmentos) tratados como um só: cada fragmento é um ProdutoService
+// com o seu diretório, os seus arquivos e o seu bloqueio. Os fragmentos são abertos em
+// paralelo, e os relatórios consolidados rodam em todos ao mesmo tempo, um por núcleo,
+// com os resultados combinados no fim.
+//
+// Dois usos: um fragmento por loja (porLoja), em que as alterações vão direto para
+// fragmento(loja) e o mesmo código pode existir em várias lojas; ou fragmentos por
+// faixa de categoria de um mesmo catálogo, em que o roteamento escolhe o fragmento
+// de cada produto incluído ou alterado.
+//
+// Com roteamento, as alterações feitas por aqui são serializadas: o código é procurado
+// em todos os fragmentos antes de uma inclusão, e a troca de fragmento de um produto
+// (mudança de categoria para outra faixa) é feita em passos que podem ser concluídos
+// na próxima abertura se o processo cair no meio (ver atualizarProduto).
+public class CatalogoFragmentado {
+    private final Map<String, ProdutoService> fragmentos = new LinkedHashMap<>();
+    private final Function<Produto, String> roteamento;
+    private final ExecutorService executor;
+    // Protege as alterações roteadas: verificação de duplicados, trocas de fragmento e exclusões
+    private final Object alteracao = new Object();
+
+    // roteamento nulo: cadastrarProduto/atualizarProduto/excluirProduto ficam indisponíveis
+    public CatalogoFragmentado(Map<String, Path> diretorios, TipoArmazenamento armazenamento,
+                               Function<Produto, String> roteamento) {
+        this.roteamento = roteamento;
+        int threads = Math.max(1, Math.min(diretorios.size(), Runtime.getRuntime().availableProcessors()));
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "fragmentos-produtos");
+            t.setDaemon(true);
+            return t;
+        });
+        Map<String, CompletableFuture<ProdutoService>> abertura = new LinkedHashMap<>();
+        diretorios.forEach((nome, diretorio) -> abertura.put(nome, CompletableFuture.supplyAsync(
+                () -> new ProdutoService(diretorio, progresso -> { }, armazenamento), executor)));
+        // Numa falha, só os fragmentos já abertos são fechados, sem chamar métodos do objeto incompleto
+        Map<String, ProdutoService> abertos = new LinkedHashMap<>();
+        RuntimeException falha = null;
+        for (Map.Entry<String, CompletableFuture<ProdutoService>> e : abertura.entrySet()) {
+            try {
+                abertos.put(e.getKey(), e.getValue().join());
+            } catch (CompletionException ex) {
+                falha = falha != null ? falha : causa(ex);
+            }
+        }
+        if (falha != null) {
+            abertos.values().forEach(ProdutoService::fechar);
+            executor.shutdown();
+            throw falha;
+        }
+        fragmentos.putAll(abertos);
+        if (roteamento != null) {
+            try {
+                concluirTrocasInterrompidas();
+            } catch (RuntimeException e) {
+                fechar();
+                throw e;
+            }
+        }
+    }
+
+    // Um fragmento por subdiretório de raiz, com o nome do subdiretório
+    public static CatalogoFragmentado porLoja(Path raiz, TipoArmazenamento armazenamento) throws IOException {
+        Map<String, Path> diretorios = new TreeMap<>();
+        try (Stream<Path> filhos = Files.list(raiz)) {
+            filhos.filter(Files::isDirectory).forEach(d -> diretorios.put(d.getFileName().toString(), d));
+        }
+        return new CatalogoFragmentado(diretorios, armazenamento, null);
+    }
+
+    // Roteamento pela faixa do id da categoria: cada chave é o primeiro id de uma faixa
+    public static Function<Produto, String> porFaixaDeCategoria(NavigableMap<Integer, String> inicioDasFaixas) {
+        return produto -> {
+            Map.Entry<Integer, String> faixa = inicioDasFaixas.floorEntry(produto.getCategoria().getId());
+            if (faixa == null) {
+                throw new IllegalArgumentException("Nenhum fragmento para a categoria " + produto.getCategoria().getId() + ".");
+            }
+            return faixa.getValue();
+        };
+    }
+
+    public Set<String> getFragmentos() {
+        return fragmentos.keySet();
+    }
+
+    public ProdutoService fragmento(String nome) {
+        ProdutoService fragmento = fragmentos.get(nome);
+        if (fragmento == null) {
+            throw new IllegalArgumentException("Fragmento não encontrado: " + nome + ".");
+        }
+        return fragmento;
+    }
+
+    // O código não pode existir em nenhum fragmento, não só no de destino
+    public CompletableFuture<Void> cadastrarProduto(Produto produto) {
+        ProdutoService destino = fragmentoDe(produto);
+        synchronized (alteracao) {
+            if (!localizarProduto(produto.getCodigo()).isEmpty()) {
+                throw new IllegalArgumentException("Já existe um produto com este código.");
+            }
+            return destino.cadastrarProduto(produto);
+        }
+    }
+
+    // Com roteamento por categoria, a troca de categoria pode mudar o produto de fragmento.
+    // A troca espera cada passo chegar ao disco antes do seguinte:
+    //   1. o produto é atualizado na origem, já com a categoria nova;
+    //   2. é incluído no destino;
+    //   3. é excluído da origem.
+    // Se o passo 2 falhar, a origem volta ao produto anterior. Se o processo cair depois
+    // do passo 1 ou 2, sobra na origem um produto cuja categoria leva a outro fragmento,
+    // e a abertura seguinte conclui a troca (concluirTrocasInterrompidas).
+    public CompletableFuture<Void> atualizarProduto(Produto produto) {
+        ProdutoService destino = fragmentoDe(produto);
+        synchronized (alteracao) {
+            if (destino.consultarProduto(produto.getCodigo()) != null) {
+                return destino.atualizarProduto(produto);
+            }
+            for (ProdutoService origem : fragmentos.values()) {
+                Produto anterior = origem == destino ? null : origem.consultarProduto(produto.getCodigo());
+                if (anterior != null) {
+                    try {
+                        origem.atualizarProduto(produto).join();
+                        try {
+                            destino.cadastrarProduto(produto).join();
+                        } catch (RuntimeException e) {
+                            desfazerInclusao(destino, produto.getCodigo());
+                            origem.atualizarProduto(anterior).join();
+                            throw e;
+                        }
+                    } catch (CompletionException e) {
+                        // Falha de gravação: avisada pelo futuro, como nas demais alterações
+                        return CompletableFuture.failedFuture(e.getCause());
+                    }
+                    return origem.excluirProduto(produto.getCodigo());
+                }
+            }
+            throw new IllegalArgumentException("Produto não encontrado.");
+        }
+    }
+
+    // A inclusão pode ter sido aplicada em memória e só a gravação ter falhado
+    private static void desfazerInclusao(ProdutoService destino, String codigo) {
+        if (destino.consultarProduto(codigo) != null) {
+            destino.excluirProduto(codigo).join();
+        }
+    }
+
+    // O roteamento depende da categoria, que a exclusão não recebe: o código é procurado
+    // em todos os fragmentos (mais de um só numa troca de fragmento interrompida)
+    public CompletableFuture<Void> excluirProduto(String codigo) {
+        exigirRoteamento();
+        synchronized (alteracao) {
+            List<CompletableFuture<Void>> exclusoes = new ArrayList<>();
+            for (ProdutoService fragmento : fragmentos.values()) {
+                if (fragmento.consultarProduto(codigo) != null) {
+                    exclusoes.add(fragmento.excluirProduto(codigo));
+                }
+            }
+            return CompletableFuture.allOf(exclusoes.toArray(new CompletableFuture<?>[0]));
+        }
+    }
+
+    // Produtos cuja categoria leva a outro fragmento sobraram de uma troca interrompida
+    // (ou de uma mudança nas faixas): se o destino já tem o código, a cópia da origem é
+    // excluída; senão o produto é incluído no destino e depois excluído da origem.
+    // Categorias sem fragmento no roteamento atual ficam onde estão.
+    private void concluirTrocasInterrompidas() {
+        Map<String, List<Produto>> foraDoLugar = porFragmento((nome, fragmento) -> {
+            List<Produto> produtos = new ArrayList<>();
+            for (Produto p : fragmento.listarTodos()) {
+                String correto = destinoOuNulo(p);
+                if (correto != null && !correto.equals(nome)) {
+                    produtos.add(p);
+                }
+            }
+            return produtos;
+        });
+        foraDoLugar.forEach((nome, produtos) -> {
+            ProdutoService origem = fragmentos.get(nome);
+            for (Produto p : produtos) {
+                ProdutoService destino = fragmentos.get(destinoOuNulo(p));
+                if (destino.consultarProduto(p.getCodigo()) == null) {
+                    destino.cadastrarProduto(p).join();
+                }
+                origem.excluirProduto(p.getCodigo()).join();
+            }
+        });
+    }
+
+    private String destinoOuNulo(Produto produto) {
+        try {
+            String nome = roteamento.apply(produto);
+            return fragmentos.containsKey(nome) ? nome : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private ProdutoService fragmentoDe(Produto produto) {
+        exigirRoteamento();
+        return fragmento(roteamento.apply(produto));
+    }
+
+    private void exigirRoteamento() {
+        if (roteamento == null) {
+            throw new IllegalStateException("Catálogo sem roteamento: as alterações vão para fragmento(nome).");
+        }
+    }
+
+    // O código procurado em todos os fragmentos; por fragmento em que foi encontrado
+    public Map<String, Produto> localizarProduto(String codigo) {
+        Map<String, Produto> encontrados = emParalelo(f -> f.consultarProduto(codigo));
+        encontrados.values().removeIf(p -> p == null);
+        return encontrados;
+    }
+
+    public int quantidadeProdutos() {
+        int total = 0;
+        for (ProdutoService fragmento : fragmentos.values()) {
+            total += fragmento.quantidadeProdutos();
+        }
+        return total;
+    }
+
+    // Relatórios consolidados
+
+    // As somas e quantidades de cada fragmento são somadas antes da divisão, então a
+    // média é a mesma que um catálogo único com todos os produtos daria
+    public Map<String, BigDecimal> margemLucroMediaPorCategoria() {
+        return ProdutoService.mediasPorCategoria(somaMargemPorCategoria());
+    }
+
+    private Map<String, SomaMargem> somaMargemPorCategoria() {
+        Map<String, SomaMargem> total = new LinkedHashMap<>();
+        for (Map<String, SomaMargem> somas : emParalelo(ProdutoService::somaMargemPorCategoria).values()) {
+            somas.forEach((categoria, soma) -> total.computeIfAbsent(categoria, k -> new SomaMargem()).combinar(soma));
+        }
+        return total;
+    }
+
+    // Os heaps de cada fragmento já têm os candidatos; combiná-los dá os mesmos produtos
+    // que um catálogo único, porque os empates são decididos pelo código
+    public Map<String, MargensCategoria> relatorioPrecificacao(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("A quantidade de produtos por categoria deve ser positiva.");
+        }
+        Map<String, ExtremosMargem> extremos = new LinkedHashMap<>();
+        for (Map<String, ExtremosMargem> doFragmento : emParalelo(f -> f.extremosMargemPorCategoria(limite)).values()) {
+            doFragmento.forEach((categoria, e) ->
+                    extremos.computeIfAbsent(categoria, k -> new ExtremosMargem(limite)).combinar(e));
+        }
+        return ProdutoService.relatorioPrecificacao(somaMargemPorCategoria(), extremos);
+    }
+
+    // Setores na ordem em que aparecem nos fragmentos; em cada setor, os produtos dos
+    // fragmentos na ordem dos fragmentos
+    public Map<String, List<Produto>> produtosPorSetor() {
+        Map<String, List<Produto>> resultado = new LinkedHashMap<>();
+        for (Map<String, List<Produto>> porSetor : emParalelo(ProdutoService::produtosPorSetor).values()) {
+            porSetor.forEach((setor, produtos) -> resultado.computeIfAbsent(setor, k -> new ArrayList<>()).addAll(produtos));
+        }
+        return resultado;
+    }
+
+    public List<Produto> produtosEstoqueBaixo() {
+        return intercalar(emParalelo(ProdutoService::produtosEstoqueBaixo), Comparator.comparing(Produto::getCodigo));
+    }
+
+    public List<Produto> produtosProximosVencimento() {
+        return intercalar(emParalelo(ProdutoService::produtosProximosVencimento),
+                Comparator.comparing(Produto::getDataValidade));
+    }
+
+    // Cada fragmento já devolve no máximo o limite, ordenado; os primeiros do conjunto
+    // estão entre os primeiros de algum fragmento
+    public List<Produto> consultar(ConsultaProdutos consulta) {
+        List<Produto> resultado = intercalar(emParalelo(f -> f.consultar(consulta)), consulta.getOrdem());
+        if (resultado.size() > consulta.getLimite()) {
+            return new ArrayList<>(resultado.subList(0, consulta.getLimite()));
+        }
+        return resultado;
+    }
+
+    // Junta as listas na ordem dos fragmentos e, com comparador, reordena (ordenação
+    // estável: empates mantêm a ordem dos fragmentos)
+    private static List<Produto> intercalar(Map<String, List<Produto>> listas, Comparator<Produto> ordem) {
+        List<Produto> resultado = new ArrayList<>();
+        listas.values().forEach(resultado::addAll);
+        if (ordem != null) {
+            resultado.sort(ordem);
+        }
+        return resultado;
+    }
+
+    // Executa a operação em todos os fragmentos ao mesmo tempo; resultados na ordem dos fragmentos
+    private <T> Map<String, T> emParalelo(Function<ProdutoService, T> operacao) {
+        return porFragmento((nome, fragmento) -> operacao.apply(fragmento));
+    }
+
+    private <T> Map<String, T> porFragmento(BiFunction<String, ProdutoService, T> operacao) {
+        Map<String, CompletableFuture<T>> futuros = new LinkedHashMap<>();
+        fragmentos.forEach((nome, fragmento) ->
+                futuros.put(nome, CompletableFuture.supplyAsync(() -> operacao.apply(nome, fragmento), executor)));
+        Map<String, T> resultados = new LinkedHashMap<>();
+        try {
+            futuros.forEach((nome, futuro) -> resultados.put(nome, futuro.join()));
+        } catch (CompletionException e) {
+            throw causa(e);
+        }
+        return resultados;
+    }
+
+    private static RuntimeException causa(CompletionException e) {
+        if (e.getCause() instanceof RuntimeException r) {
+            return r;
+        }
+        return e;
+    }
+
+    public void fechar() {
+        fragmentos.values().forEach(ProdutoService::fechar);
+        executor.shutdown();
+    }
+}
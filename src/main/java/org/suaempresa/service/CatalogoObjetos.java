@@ -0,0 +1,246 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Armazenamento padrão: um objeto Produto por item, indexado pelo código, com os
+// relatórios e o índice de validade mantidos a cada alteração.
+class CatalogoObjetos implements ArmazenamentoProdutos {
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    // Índice pela chave primária (código); a ordem de inserção é preservada para a listagem
+    private final Map<String, Produto> produtos = new LinkedHashMap<>();
+    // A mesma ordem em linhas, para a paginação: exclusões deixam null na linha, e as
+    // linhas são reorganizadas quando metade delas estiver vazia
+    private Produto[] porLinha = new Produto[CAPACIDADE_INICIAL];
+    private final Map<String, Integer> linhaPorCodigo = new HashMap<>();
+    private ContagemLinhas vivas = new ContagemLinhas(CAPACIDADE_INICIAL);
+    private int linhas;
+    private final RelatoriosIncrementais relatorios = new RelatoriosIncrementais();
+    private final IndiceValidade indiceValidade = new IndiceValidade();
+
+    @Override
+    public Produto buscar(String codigo) {
+        return produtos.get(codigo);
+    }
+
+    @Override
+    public boolean contem(String codigo) {
+        return produtos.containsKey(codigo);
+    }
+
+    @Override
+    public void salvar(Produto produto) {
+        Produto anterior = produtos.put(produto.getCodigo(), produto);
+        if (anterior != null) {
+            relatorios.remover(anterior);
+            indiceValidade.remover(anterior);
+            porLinha[linhaPorCodigo.get(produto.getCodigo())] = produto;
+        } else {
+            if (linhas == porLinha.length) {
+                porLinha = Arrays.copyOf(porLinha, linhas * 2);
+                vivas.crescer(porLinha.length);
+            }
+            porLinha[linhas] = produto;
+            linhaPorCodigo.put(produto.getCodigo(), linhas);
+            vivas.alterar(linhas++, 1);
+        }
+        relatorios.adicionar(produto);
+        indiceValidade.adicionar(produto);
+    }
+
+    @Override
+    public boolean remover(String codigo) {
+        Produto removido = produtos.remove(codigo);
+        if (removido == null) {
+            return false;
+        }
+        relatorios.remover(removido);
+        indiceValidade.remover(removido);
+        int linha = linhaPorCodigo.remove(codigo);
+        porLinha[linha] = null;
+        vivas.alterar(linha, -1);
+        if (linhas > CAPACIDADE_INICIAL && produtos.size() * 2 < linhas) {
+            reorganizar();
+        }
+        return true;
+    }
+
+    // Refaz as linhas na ordem do mapa, sem buracos
+    private void reorganizar() {
+        porLinha = new Produto[Math.max(CAPACIDADE_INICIAL, produtos.size() * 2)];
+        linhas = 0;
+        for (Produto p : produtos.values()) {
+            linhaPorCodigo.put(p.getCodigo(), linhas);
+            porLinha[linhas++] = p;
+        }
+        vivas = ContagemLinhas.todasVivas(linhas, porLinha.length);
+    }
+
+    @Override
+    public int tamanho() {
+        return produtos.size();
+    }
+
+    @Override
+    public List<Produto> todos() {
+        return new ArrayList<>(produtos.values());
+    }
+
+    // A primeira linha da página vem da contagem de vivas; daí em diante só os buracos
+    // dentro da página são pulados
+    @Override
+    public List<Produto> pagina(int inicio, int quantidade) {
+        List<Produto> pagina = new ArrayList<>(Math.max(0, Math.min(quantidade, produtos.size() - inicio)));
+        if (inicio >= produtos.size()) {
+            return pagina;
+        }
+        for (int linha = vivas.linha(Math.max(0, inicio)); linha < linhas && pagina.size() < quantidade; linha++) {
+            if (porLinha[linha] != null) {
+                pagina.add(porLinha[linha]);
+            }
+        }
+        return pagina;
+    }
+
+    @Override
+    public int posicao(String codigo) {
+        Integer linha = linhaPorCodigo.get(codigo);
+        return linha == null ? -1 : vivas.antes(linha);
+    }
+
+    @Override
+    public int quantidadeEstoque(String codigo) {
+        Produto produto = produtos.get(codigo);
+        return produto == null ? -1 : produto.getQuantidadeEstoque();
+    }
+
+    // A quantidade é trocada por CAS no próprio produto
+    @Override
+    public long movimentarEstoque(String codigo, int quantidade) {
+        Produto produto = produtos.get(codigo);
+        if (produto == null) {
+            throw new IllegalArgumentException("Produto não encontrado: " + codigo + ".");
+        }
+        int anterior = produto.getQuantidadeEstoque();
+        long estoque = EstoqueVersionado.movimentar(produto, quantidade);
+        relatorios.estoqueAlterado(produto, anterior, EstoqueVersionado.quantidade(estoque));
+        return estoque;
+    }
+
+    @Override
+    public boolean aplicarEstoque(String codigo, long estoque) {
+        Produto produto = produtos.get(codigo);
+        if (produto == null) {
+            return false;
+        }
+        int anterior = produto.getQuantidadeEstoque();
+        if (!EstoqueVersionado.aplicar(produto, estoque)) {
+            return false;
+        }
+        relatorios.estoqueAlterado(produto, anterior, EstoqueVersionado.quantidade(estoque));
+        return true;
+    }
+
+    // Os candidatos vêm do índice mais seletivo do critério; a varredura completa só
+    // é usada quando nenhuma parte dele tem índice
+    @Override
+    public List<Produto> filtrar(Criterio criterio) {
+        Collection<Produto> candidatos = estimativa(criterio) < produtos.size()
+                ? candidatos(criterio) : produtos.values();
+        List<Produto> resultado = new ArrayList<>();
+        for (Produto p : candidatos) {
+            if (criterio.aceita(p)) {
+                resultado.add(p);
+            }
+        }
+        return resultado;
+    }
+
+    // Quantos candidatos o índice do critério devolveria; Integer.MAX_VALUE se não há índice
+    int estimativa(Criterio criterio) {
+        if (criterio instanceof Criterio.PorValidade v) {
+            return indiceValidade.contar(v.inicio, v.fim);
+        }
+        if (criterio instanceof Criterio.PorCategoria c) {
+            return relatorios.daCategoria(c.nome).size();
+        }
+        if (criterio instanceof Criterio.PorSetor s) {
+            return relatorios.doSetor(s.setor).size();
+        }
+        if (criterio instanceof Criterio.PorEstoque e && e.maximo < RelatoriosIncrementais.LIMITE_ESTOQUE_BAIXO) {
+            return relatorios.estoqueBaixo().size();
+        }
+        if (criterio instanceof Criterio.E e) {
+            int menor = Integer.MAX_VALUE;
+            for (Criterio c : e.criterios) {
+                menor = Math.min(menor, estimativa(c));
+            }
+            return menor;
+        }
+        if (criterio instanceof Criterio.Ou ou) {
+            long soma = 0;
+            for (Criterio c : ou.criterios) {
+                soma += estimativa(c);
+            }
+            return (int) Math.min(soma, Integer.MAX_VALUE);
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    // Superconjunto dos aceitos; só é chamado quando estimativa(criterio) tem índice
+    private Collection<Produto> candidatos(Criterio criterio) {
+        if (criterio instanceof Criterio.PorValidade v) {
+            return indiceValidade.entre(v.inicio, v.fim);
+        }
+        if (criterio instanceof Criterio.PorCategoria c) {
+            return relatorios.daCategoria(c.nome);
+        }
+        if (criterio instanceof Criterio.PorSetor s) {
+            return relatorios.doSetor(s.setor);
+        }
+        if (criterio instanceof Criterio.PorEstoque) {
+            return relatorios.estoqueBaixo();
+        }
+        if (criterio instanceof Criterio.E e) {
+            Criterio maisSeletivo = e.criterios.get(0);
+            for (Criterio c : e.criterios) {
+                if (estimativa(c) < estimativa(maisSeletivo)) {
+                    maisSeletivo = c;
+                }
+            }
+            return candidatos(maisSeletivo);
+        }
+        Set<Produto> uniao = new LinkedHashSet<>();
+        for (Criterio c : ((Criterio.Ou) criterio).criterios) {
+            uniao.addAll(candidatos(c));
+        }
+        return uniao;
+    }
+
+    @Override
+    public Map<String, SomaMargem> somaMargemPorCategoria() {
+        return relatorios.somaMargemPorCategoria();
+    }
+
+    @Override
+    public Map<String, ExtremosMargem> extremosMargemPorCategoria(int limite) {
+        return relatorios.extremosMargemPorCategoria(limite);
+    }
+
+    // Os objetos são compartilhados com a cópia; só o estoque muda depois dela, e o
+    // journal registra a versão de cada movimentação
+    @Override
+    public Collection<Produto> copia() {
+        return new ArrayList<>(produtos.values());
+    }
+}
@@ -0,0 +1,53 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.util.Comparator;
+
+// Consulta para ProdutoService.consultar: critério, ordenação opcional e limite.
+// Sem ordenação, a ordem é a do índice usado pelo armazenamento.
+public class ConsultaProdutos {
+    public enum Ordenacao {
+        CODIGO(Comparator.comparing(Produto::getCodigo)),
+        NOME(Comparator.comparing(Produto::getNome, Comparator.nullsLast(Comparator.naturalOrder()))),
+        VALIDADE(Comparator.comparing(Produto::getDataValidade)),
+        PRECO_VENDA(Comparator.comparing(Produto::getPrecoVenda)),
+        ESTOQUE(Comparator.comparingInt(Produto::getQuantidadeEstoque)),
+        MARGEM(Comparator.comparing(Produto::getMargem));
+
+        private final Comparator<Produto> comparador;
+
+        Ordenacao(Comparator<Produto> comparador) {
+            this.comparador = comparador;
+        }
+    }
+
+    private final Criterio criterio;
+    private Comparator<Produto> ordem;
+    private int limite = Integer.MAX_VALUE;
+
+    public ConsultaProdutos(Criterio criterio) {
+        this.criterio = criterio;
+    }
+
+    public ConsultaProdutos ordenarPor(Ordenacao ordenacao) {
+        return ordenarPor(ordenacao, false);
+    }
+
+    public ConsultaProdutos ordenarPor(Ordenacao ordenacao, boolean decrescente) {
+        this.ordem = decrescente ? ordenacao.comparador.reversed() : ordenacao.comparador;
+        return this;
+    }
+
+    public ConsultaProdutos limitar(int limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("O limite não pode ser negativo.");
+        }
+        this.limite = limite;
+        return this;
+    }
+
+    public Criterio getCriterio() { return criterio; }
+    public Comparator<Produto> getOrdem() { return ordem; }
+    public int getLimite() { return limite; }
+}
@@ -0,0 +1,74 @@
+package org.suaempresa.service;
+
+import java.util.Arrays;
+
+// Quantidade de linhas vivas por prefixo (árvore de Fenwick) para os armazenamentos que
+// guardam os produtos em linhas na ordem de inserção, com as exclusões deixando buracos.
+// Posição de uma linha na listagem e linha de uma posição custam O(log n), em vez de
+// contar as linhas vivas desde o início.
+final class ContagemLinhas {
+    // 1-indexada: arvore[i] soma as linhas (i - (i & -i), i]
+    private int[] arvore;
+
+    ContagemLinhas(int capacidade) {
+        arvore = new int[capacidade + 1];
+    }
+
+    // As linhas [0, linhas) vivas, montada em O(capacidade)
+    static ContagemLinhas todasVivas(int linhas, int capacidade) {
+        ContagemLinhas contagem = new ContagemLinhas(capacidade);
+        int[] arvore = contagem.arvore;
+        for (int i = 1; i <= capacidade; i++) {
+            if (i <= linhas) {
+                arvore[i]++;
+            }
+            int pai = i + (i & -i);
+            if (pai <= capacidade) {
+                arvore[pai] += arvore[i];
+            }
+        }
+        return contagem;
+    }
+
+    // delta = 1 quando a linha passa a existir, -1 quando é removida
+    void alterar(int linha, int delta) {
+        for (int i = linha + 1; i < arvore.length; i += i & -i) {
+            arvore[i] += delta;
+        }
+    }
+
+    // Linhas vivas antes da linha, ou seja, a posição dela na listagem
+    int antes(int linha) {
+        int soma = 0;
+        for (int i = linha; i > 0; i -= i & -i) {
+            soma += arvore[i];
+        }
+        return soma;
+    }
+
+    // Linha da viva de número "posicao" (a partir de 0); exige posicao < linhas vivas
+    int linha(int posicao) {
+        int linha = 0;
+        int restante = posicao + 1;
+        for (int passo = Integer.highestOneBit(arvore.length - 1); passo > 0; passo >>= 1) {
+            int proxima = linha + passo;
+            if (proxima < arvore.length && arvore[proxima] < restante) {
+                linha = proxima;
+                restante -= arvore[proxima];
+            }
+        }
+        return linha;
+    }
+
+    // As linhas novas começam removidas; os nós novos cobrem faixas que podem incluir linhas antigas
+    void crescer(int capacidade) {
+        int anterior = arvore.length - 1;
+        int total = antes(anterior);
+        int[] nova = Arrays.copyOf(arvore, capacidade + 1);
+        for (int i = anterior + 1; i <= capacidade; i++) {
+            int inicio = i - (i & -i);
+            nova[i] = total - (inicio >= anterior ? total : antes(inicio));
+        }
+        arvore = nova;
+    }
+}
@@ -0,0 +1,207 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+// Condição sobre um produto para ConsultaProdutos. As folhas são as condições que os
+// armazenamentos sabem acelerar com índices (objetos) ou varreduras de colunas
+// (colunar); E e OU combinam outras condições. Limites nulos deixam o intervalo aberto.
+public abstract class Criterio {
+    Criterio() {
+    }
+
+    abstract boolean aceita(Produto p);
+
+    public static Criterio categoria(String nome) {
+        return new PorCategoria(nome);
+    }
+
+    public static Criterio setor(String setor) {
+        return new PorSetor(setor);
+    }
+
+    // Preço de venda em [minimo, maximo]
+    public static Criterio precoVendaEntre(BigDecimal minimo, BigDecimal maximo) {
+        return new PorPrecoVenda(minimo, maximo);
+    }
+
+    // Margem em pontos percentuais em [minimo, maximo] (ver Produto.getMargem)
+    public static Criterio margemEntre(BigDecimal minimo, BigDecimal maximo) {
+        return new PorMargem(minimo, maximo);
+    }
+
+    // Quantidade em estoque em [minimo, maximo]
+    public static Criterio estoqueEntre(int minimo, int maximo) {
+        return new PorEstoque(minimo, maximo);
+    }
+
+    // Validade em [inicio, fim); inicio nulo inclui os já vencidos, fim nulo não tem limite
+    public static Criterio validadeEntre(LocalDate inicio, LocalDate fim) {
+        return new PorValidade(inicio, fim);
+    }
+
+    public static Criterio e(Criterio... criterios) {
+        return new E(Arrays.asList(criterios));
+    }
+
+    public static Criterio ou(Criterio... criterios) {
+        return new Ou(Arrays.asList(criterios));
+    }
+
+    static final class PorCategoria extends Criterio {
+        final String nome;
+
+        PorCategoria(String nome) {
+            this.nome = nome;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            return p.getCategoria().getNome().equals(nome);
+        }
+    }
+
+    static final class PorSetor extends Criterio {
+        final String setor;
+
+        PorSetor(String setor) {
+            this.setor = setor;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            return p.getCategoria().getSetor().equals(setor);
+        }
+    }
+
+    static final class PorPrecoVenda extends Criterio {
+        final BigDecimal minimo;
+        final BigDecimal maximo;
+
+        PorPrecoVenda(BigDecimal minimo, BigDecimal maximo) {
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            return aceitaPreco(p.getPrecoVenda());
+        }
+
+        boolean aceitaPreco(BigDecimal preco) {
+            return dentro(preco, minimo, maximo);
+        }
+    }
+
+    static final class PorMargem extends Criterio {
+        final BigDecimal minimo;
+        final BigDecimal maximo;
+        // Limites na unidade das margens sem escala (Produto.ESCALA_MARGEM casas),
+        // arredondados para dentro e limitados ao alcance de long, para a coluna do
+        // CatalogoColunar, que só guarda em long margens estritamente dentro desse alcance
+        final long minimoSemEscala;
+        final long maximoSemEscala;
+
+        PorMargem(BigDecimal minimo, BigDecimal maximo) {
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.minimoSemEscala = minimo == null ? Long.MIN_VALUE : semEscala(minimo, RoundingMode.CEILING);
+            this.maximoSemEscala = maximo == null ? Long.MAX_VALUE : semEscala(maximo, RoundingMode.FLOOR);
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            return aceitaMargem(p.getMargem());
+        }
+
+        boolean aceitaMargem(BigDecimal margem) {
+            return dentro(margem, minimo, maximo);
+        }
+
+        boolean aceitaSemEscala(long margem) {
+            return margem >= minimoSemEscala && margem <= maximoSemEscala;
+        }
+
+        private static long semEscala(BigDecimal valor, RoundingMode arredondamento) {
+            return valor.setScale(Produto.ESCALA_MARGEM, arredondamento).unscaledValue()
+                    .max(BigInteger.valueOf(Long.MIN_VALUE)).min(BigInteger.valueOf(Long.MAX_VALUE)).longValue();
+        }
+    }
+
+    static final class PorEstoque extends Criterio {
+        final int minimo;
+        final int maximo;
+
+        PorEstoque(int minimo, int maximo) {
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            return p.getQuantidadeEstoque() >= minimo && p.getQuantidadeEstoque() <= maximo;
+        }
+    }
+
+    static final class PorValidade extends Criterio {
+        final LocalDate inicio;
+        final LocalDate fim;
+
+        PorValidade(LocalDate inicio, LocalDate fim) {
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            return (inicio == null || !p.getDataValidade().isBefore(inicio))
+                    && (fim == null || p.getDataValidade().isBefore(fim));
+        }
+    }
+
+    static final class E extends Criterio {
+        final List<Criterio> criterios;
+
+        E(List<Criterio> criterios) {
+            this.criterios = criterios;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            for (Criterio c : criterios) {
+                if (!c.aceita(p)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static final class Ou extends Criterio {
+        final List<Criterio> criterios;
+
+        Ou(List<Criterio> criterios) {
+            this.criterios = criterios;
+        }
+
+        @Override
+        boolean aceita(Produto p) {
+            for (Criterio c : criterios) {
+                if (c.aceita(p)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean dentro(BigDecimal valor, BigDecimal minimo, BigDecimal maximo) {
+        return (minimo == null || valor.compareTo(minimo) >= 0) && (maximo == null || valor.compareTo(maximo) <= 0);
+    }
+}
@@ -0,0 +1,61 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+// Operações sobre o estoque versionado do Produto: quantidade nos 32 bits baixos e
+// versão nos 32 altos. Cada movimentação incrementa a versão, e o journal grava a
+// quantidade resultante junto com ela; na reaplicação um registro só vale se for mais
+// novo que o estado atual, o que torna a ordem de gravação e a reaplicação sobre um
+// snapshot mais recente irrelevantes.
+final class EstoqueVersionado {
+    private EstoqueVersionado() {
+    }
+
+    static int quantidade(long estoque) {
+        return (int) estoque;
+    }
+
+    static int versao(long estoque) {
+        return (int) (estoque >>> 32);
+    }
+
+    static long compor(int versao, int quantidade) {
+        return ((long) versao << 32) | Integer.toUnsignedLong(quantidade);
+    }
+
+    // Soma a quantidade por CAS, sem bloqueio. Devolve o estoque resultante.
+    static long movimentar(Produto p, int quantidade) {
+        while (true) {
+            long atual = p.getEstoqueVersionado();
+            long novo = somar(atual, quantidade, p.getCodigo());
+            if (p.compareAndSetEstoque(atual, novo)) {
+                return novo;
+            }
+        }
+    }
+
+    // Próxima versão do estoque; lança exceção se a quantidade ficaria fora de [0, Integer.MAX_VALUE]
+    static long somar(long atual, int quantidade, String codigo) {
+        long resultado = (long) quantidade(atual) + quantidade;
+        if (resultado < 0) {
+            throw new IllegalArgumentException("Estoque insuficiente para o produto " + codigo + ".");
+        }
+        if (resultado > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Estoque excede o limite para o produto " + codigo + ".");
+        }
+        return compor(versao(atual) + 1, (int) resultado);
+    }
+
+    // Reaplicação do journal: ignora registros não mais novos que o estado atual
+    static boolean aplicar(Produto p, long registro) {
+        while (true) {
+            long atual = p.getEstoqueVersionado();
+            if (Integer.compareUnsigned(versao(registro), versao(atual)) <= 0) {
+                return false;
+            }
+            if (p.compareAndSetEstoque(atual, registro)) {
+                return true;
+            }
+        }
+    }
+}
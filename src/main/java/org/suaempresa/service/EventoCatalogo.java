@@ -0,0 +1,58 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+// Alteração do catálogo publicada por ProdutoService.getEventos(). A sequência cresce
+// de um em um: um salto indica eventos descartados por um assinante lento, que deve
+// então reler o catálogo. A posição é a da listagem no momento da alteração
+// (-1 quando não calculada, como nas importações e movimentações).
+public class EventoCatalogo {
+    public enum Tipo { CRIADO, ATUALIZADO, EXCLUIDO, ESTOQUE_ALTERADO }
+
+    private final long sequencia;
+    private final Tipo tipo;
+    private final String codigo;
+    private final Produto produto;
+    private final Produto anterior;
+    private final int posicao;
+    private final int versaoEstoque;
+    private final int quantidadeEstoque;
+
+    EventoCatalogo(long sequencia, Tipo tipo, String codigo, Produto produto, Produto anterior, int posicao,
+                   int versaoEstoque, int quantidadeEstoque) {
+        this.sequencia = sequencia;
+        this.tipo = tipo;
+        this.codigo = codigo;
+        this.produto = produto;
+        this.anterior = anterior;
+        this.posicao = posicao;
+        this.versaoEstoque = versaoEstoque;
+        this.quantidadeEstoque = quantidadeEstoque;
+    }
+
+    public long getSequencia() { return sequencia; }
+    public Tipo getTipo() { return tipo; }
+    public String getCodigo() { return codigo; }
+    // Estado novo em CRIADO e ATUALIZADO, o produto removido em EXCLUIDO, null em ESTOQUE_ALTERADO.
+    // É o mesmo objeto do catálogo, cujo estoque pode já refletir movimentações posteriores.
+    public Produto getProduto() { return produto; }
+    // Em ATUALIZADO, o produto substituído; null nos demais tipos
+    public Produto getAnterior() { return anterior; }
+    public int getPosicao() { return posicao; }
+    // Em ESTOQUE_ALTERADO: versões maiores substituem as menores do mesmo produto
+    public int getVersaoEstoque() { return versaoEstoque; }
+    public int getQuantidadeEstoque() { return quantidadeEstoque; }
+
+    // Uma linha por evento: "sequencia;TIPO;" seguido do CSV do produto com os textos
+    // escapados como no journal (CRIADO, ATUALIZADO), do código (EXCLUIDO) ou de
+    // "codigo;versao;quantidade" (ESTOQUE_ALTERADO)
+    @Override
+    public String toString() {
+        String dados = switch (tipo) {
+            case CRIADO, ATUALIZADO -> LeitorCsvProdutos.linhaEscapada(produto);
+            case EXCLUIDO -> codigo;
+            case ESTOQUE_ALTERADO -> codigo + ";" + Integer.toUnsignedString(versaoEstoque) + ";" + quantidadeEstoque;
+        };
+        return sequencia + ";" + tipo + ";" + dados;
+    }
+}
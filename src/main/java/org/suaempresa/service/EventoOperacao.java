@@ -0,0 +1,28 @@
+package org.suaempresa.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Evento JFR de cada operação medida do ProdutoService, com início e fim; na gravação
+// do JFR aparece ao lado das pausas da thread do JavaFX e das escritas em disco
+@Name("org.suaempresa.OperacaoProdutos")
+@Label("Operação do catálogo")
+@Category("Gerenciador de Produtos")
+@Description("Operação do ProdutoService: carga, consulta, alteração, journal ou snapshot")
+@StackTrace(false)
+class EventoOperacao extends Event {
+    @Label("Operação")
+    String operacao;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Sucesso")
+    boolean sucesso;
+}
@@ -0,0 +1,84 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// As n maiores e as n menores margens de um grupo de produtos, em dois heaps limitados
+// a n: o das maiores guarda a menor delas na raiz e a troca quando chega uma margem
+// maior; o das menores, o contrário. Cada oferta custa O(log n), sem ordenar o grupo.
+// Empates de margem são decididos pelo código, para que o resultado não dependa da
+// ordem das ofertas (e combinar fragmentos dê o mesmo que um catálogo único).
+final class ExtremosMargem {
+    private static final Comparator<Produto> POR_MARGEM =
+            Comparator.comparing(Produto::getMargem).thenComparing(Produto::getCodigo);
+
+    private final int limite;
+    private final PriorityQueue<Produto> maiores = new PriorityQueue<>(POR_MARGEM);
+    private final PriorityQueue<Produto> menores = new PriorityQueue<>(POR_MARGEM.reversed());
+
+    ExtremosMargem(int limite) {
+        this.limite = limite;
+    }
+
+    void oferecer(Produto produto) {
+        if (entraEmMaiores(produto.getMargem(), produto.getCodigo())) {
+            inserir(maiores, produto);
+        }
+        if (entraEmMenores(produto.getMargem(), produto.getCodigo())) {
+            inserir(menores, produto);
+        }
+    }
+
+    // Para quem só cria o Produto se ele for entrar em algum dos heaps (CatalogoColunar)
+    boolean entraria(BigDecimal margem, String codigo) {
+        return entraEmMaiores(margem, codigo) || entraEmMenores(margem, codigo);
+    }
+
+    void combinar(ExtremosMargem outro) {
+        outro.maiores.forEach(this::oferecer);
+        outro.menores.forEach(this::oferecer);
+    }
+
+    private boolean entraEmMaiores(BigDecimal margem, String codigo) {
+        return maiores.size() < limite || comparar(margem, codigo, maiores.peek()) > 0;
+    }
+
+    private boolean entraEmMenores(BigDecimal margem, String codigo) {
+        return menores.size() < limite || comparar(margem, codigo, menores.peek()) < 0;
+    }
+
+    private void inserir(PriorityQueue<Produto> heap, Produto produto) {
+        // Um produto vindo de outro heap pode já estar neste (combinar)
+        if (heap.contains(produto)) {
+            return;
+        }
+        if (heap.size() == limite) {
+            heap.poll();
+        }
+        heap.add(produto);
+    }
+
+    private static int comparar(BigDecimal margem, String codigo, Produto produto) {
+        int porMargem = margem.compareTo(produto.getMargem());
+        return porMargem != 0 ? porMargem : codigo.compareTo(produto.getCodigo());
+    }
+
+    // Da maior margem para a menor
+    List<Produto> getMaiores() {
+        List<Produto> ordenados = new ArrayList<>(maiores);
+        ordenados.sort(POR_MARGEM.reversed());
+        return ordenados;
+    }
+
+    // Da menor margem para a maior
+    List<Produto> getMenores() {
+        List<Produto> ordenados = new ArrayList<>(menores);
+        ordenados.sort(POR_MARGEM);
+        return ordenados;
+    }
+}
@@ -0,0 +1,73 @@
+package org.suaempresa.service;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latências em faixas de potências de 2 microssegundos: a faixa i
+// guarda durações em [2^(i-1), 2^i) us. Registrar é só somar em contadores LongAdder,
+// sem bloqueio; os percentis são aproximados pelo limite superior da faixa.
+final class HistogramaLatencia {
+    private static final int FAIXAS = 40;
+
+    private final LongAdder[] faixas = new LongAdder[FAIXAS];
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+
+    HistogramaLatencia() {
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new LongAdder();
+        }
+    }
+
+    void registrar(long nanos, boolean sucesso) {
+        long micros = Math.max(0, nanos / 1000);
+        faixas[Math.min(FAIXAS - 1, 64 - Long.numberOfLeadingZeros(micros))].increment();
+        contagem.increment();
+        totalNanos.add(nanos);
+        maximoNanos.accumulate(nanos);
+        if (!sucesso) {
+            erros.increment();
+        }
+    }
+
+    long contagem() {
+        return contagem.sum();
+    }
+
+    long erros() {
+        return erros.sum();
+    }
+
+    long mediaMicros() {
+        long n = contagem.sum();
+        return n == 0 ? 0 : totalNanos.sum() / n / 1000;
+    }
+
+    long maximoMicros() {
+        return maximoNanos.get() / 1000;
+    }
+
+    // Limite superior da faixa onde está o percentil (0 a 100), sem passar do máximo observado
+    long percentilMicros(double percentil) {
+        long[] valores = new long[FAIXAS];
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            valores[i] = faixas[i].sum();
+            total += valores[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long alvo = (long) Math.ceil(total * percentil / 100);
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += valores[i];
+            if (acumulado >= alvo) {
+                return i == 0 ? 0 : Math.min((1L << i) - 1, maximoMicros());
+            }
+        }
+        return maximoMicros();
+    }
+}
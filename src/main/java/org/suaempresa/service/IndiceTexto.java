@@ -0,0 +1,400 @@
+package org.suaempresa.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Índice invertido de palavras do nome e da descrição. As palavras são guardadas sem
+// acentos e em minúsculas ("Açúcar" vira "acucar"). Cada produto recebe um id interno
+// e as listas de ocorrências são arrays de int, com o campo nos dois bits mais baixos.
+//
+// Para a busca por prefixo as palavras ficam também em um array ordenado, onde um
+// prefixo é uma faixa contígua. Palavras novas entram primeiro em uma lista pequena,
+// percorrida linearmente, e são intercaladas no array de tempos em tempos; assim
+// cada inclusão custa O(1) em vez de uma inserção em árvore.
+//
+// A exclusão também é O(1): o id só é marcado como morto (sem código) e as ocorrências
+// dele ficam nas listas, ignoradas pela busca. Quando os mortos chegam aos vivos, as
+// listas são compactadas de uma vez e os ids mortos voltam a ser usados; antes disso
+// um id morto nunca é reaproveitado, para que as ocorrências antigas não o confundam
+// com um produto novo.
+class IndiceTexto {
+    private static final int CAMPO_NOME = 1;
+    private static final int CAMPO_DESCRICAO = 2;
+    // Pontuação de um termo da busca no produto, pela melhor ocorrência
+    private static final int NOME_EXATO = 4;
+    private static final int NOME_PREFIXO = 3;
+    private static final int DESCRICAO_EXATA = 2;
+    private static final int DESCRICAO_PREFIXO = 1;
+    private static final int MAXIMO_TERMOS = 32;
+    private static final int MINIMO_RECENTES = 4096;
+    private static final int MINIMO_MORTOS = 1024;
+    // Letras até U+017F já sem acento e em minúsculas; 0 separa palavras, COMPLEXO
+    // manda a string inteira para o Normalizer
+    private static final char[] LATIN = new char[0x180];
+    private static final char COMPLEXO = '\uFFFF';
+
+    static {
+        for (char c = 0; c < LATIN.length; c++) {
+            String decomposto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            char base = decomposto.charAt(0);
+            boolean soMarcas = true;
+            for (int i = 1; i < decomposto.length(); i++) {
+                soMarcas &= Character.getType(decomposto.charAt(i)) == Character.NON_SPACING_MARK;
+            }
+            if (!soMarcas || Character.toLowerCase(base) > 0x17F) {
+                LATIN[c] = COMPLEXO;
+            } else if (Character.isLetterOrDigit(base)) {
+                LATIN[c] = Character.toLowerCase(base);
+            }
+        }
+    }
+
+    // Ocorrências por palavra; listas esvaziadas ficam até a próxima intercalação
+    private final Map<String, Ocorrencias> palavras = new HashMap<>();
+    private String[] ordenadas = new String[0];
+    private final List<String> recentes = new ArrayList<>();
+    private final Map<String, Integer> idPorCodigo = new HashMap<>();
+    private String[] codigoPorId = new String[1024];
+    private int[] idsLivres = new int[16];
+    private int livres;
+    private int mortos;
+    private int proximoId;
+
+    void adicionar(String codigo, String nome, String descricao) {
+        int id = alocarId(codigo);
+        List<String> doNome = palavras(nome);
+        List<String> daDescricao = palavras(descricao);
+        // Uma ocorrência por palavra distinta, com os campos em que ela aparece
+        for (int i = 0; i < doNome.size(); i++) {
+            String palavra = doNome.get(i);
+            if (doNome.indexOf(palavra) == i) {
+                int campos = daDescricao.contains(palavra) ? CAMPO_NOME | CAMPO_DESCRICAO : CAMPO_NOME;
+                ocorrencias(palavra).adicionar(id << 2 | campos);
+            }
+        }
+        for (int i = 0; i < daDescricao.size(); i++) {
+            String palavra = daDescricao.get(i);
+            if (daDescricao.indexOf(palavra) == i && !doNome.contains(palavra)) {
+                ocorrencias(palavra).adicionar(id << 2 | CAMPO_DESCRICAO);
+            }
+        }
+        if (recentes.size() >= Math.max(MINIMO_RECENTES, ordenadas.length / 8)) {
+            intercalar();
+        }
+    }
+
+    private Ocorrencias ocorrencias(String palavra) {
+        Ocorrencias ocorrencias = palavras.get(palavra);
+        if (ocorrencias == null) {
+            ocorrencias = new Ocorrencias();
+            palavras.put(palavra, ocorrencias);
+            recentes.add(palavra);
+        }
+        return ocorrencias;
+    }
+
+    void remover(String codigo) {
+        Integer id = idPorCodigo.remove(codigo);
+        if (id == null) {
+            return;
+        }
+        codigoPorId[id] = null;
+        mortos++;
+        if (mortos >= Math.max(MINIMO_MORTOS, idPorCodigo.size())) {
+            compactar();
+        }
+    }
+
+    // Tira das listas as ocorrências dos ids mortos, descarta as palavras que ficaram
+    // sem ocorrências e libera os ids mortos para reúso
+    private void compactar() {
+        for (Ocorrencias ocorrencias : palavras.values()) {
+            ocorrencias.descartarMortos(codigoPorId);
+        }
+        intercalar();
+        livres = 0;
+        for (int id = 0; id < proximoId; id++) {
+            if (codigoPorId[id] == null) {
+                if (livres == idsLivres.length) {
+                    idsLivres = Arrays.copyOf(idsLivres, livres * 2);
+                }
+                idsLivres[livres++] = id;
+            }
+        }
+        mortos = 0;
+    }
+
+    // Códigos que contêm todos os termos (cada termo como palavra inteira ou prefixo),
+    // do mais relevante para o menos: nome antes de descrição, palavra exata antes de
+    // prefixo; empates ficam na ordem dos ids.
+    //
+    // Os candidatos são os produtos do termo com menos ocorrências; os demais termos só
+    // pontuam e filtram esses candidatos, então a memória da busca é proporcional a eles
+    // e não ao número de produtos indexados.
+    List<String> buscar(String consulta, int limite) {
+        List<String> termos = palavras(consulta);
+        if (termos.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+        if (termos.size() > MAXIMO_TERMOS) {
+            termos = termos.subList(0, MAXIMO_TERMOS);
+        }
+        List<List<String>> palavrasDosTermos = new ArrayList<>();
+        int maisRaro = 0;
+        long menosOcorrencias = Long.MAX_VALUE;
+        for (int t = 0; t < termos.size(); t++) {
+            List<String> doTermo = comPrefixo(termos.get(t));
+            long ocorrencias = 0;
+            for (String palavra : doTermo) {
+                ocorrencias += palavras.get(palavra).tamanho;
+            }
+            if (ocorrencias < menosOcorrencias) {
+                menosOcorrencias = ocorrencias;
+                maisRaro = t;
+            }
+            palavrasDosTermos.add(doTermo);
+        }
+        Candidatos candidatos = candidatos(termos.get(maisRaro), palavrasDosTermos.get(maisRaro));
+        for (int t = 0; t < termos.size() && candidatos.tamanho > 0; t++) {
+            if (t != maisRaro) {
+                pontuar(candidatos, termos.get(t), palavrasDosTermos.get(t));
+            }
+        }
+        return melhores(candidatos, termos.size(), limite);
+    }
+
+    // Ids vivos com ocorrência do termo, em ordem crescente, com a melhor pontuação de cada um
+    private Candidatos candidatos(String termo, List<String> doTermo) {
+        int total = 0;
+        for (String palavra : doTermo) {
+            total += palavras.get(palavra).tamanho;
+        }
+        // id << 3 | pontuação: ordenados, as ocorrências de um id ficam juntas e a melhor por último
+        long[] itens = new long[total];
+        int n = 0;
+        for (String palavra : doTermo) {
+            boolean exata = palavra.length() == termo.length();
+            Ocorrencias ocorrencias = palavras.get(palavra);
+            for (int i = 0; i < ocorrencias.tamanho; i++) {
+                int item = ocorrencias.itens[i];
+                int id = item >>> 2;
+                if (codigoPorId[id] != null) {
+                    itens[n++] = (long) id << 3 | pontuacao(item & 3, exata);
+                }
+            }
+        }
+        Arrays.sort(itens, 0, n);
+        Candidatos candidatos = new Candidatos(n);
+        for (int i = 0; i < n; i++) {
+            if (i + 1 == n || itens[i + 1] >>> 3 != itens[i] >>> 3) {
+                candidatos.ids[candidatos.tamanho] = (int) (itens[i] >>> 3);
+                candidatos.pontos[candidatos.tamanho] = (int) (itens[i] & 7);
+                candidatos.tamanho++;
+            }
+        }
+        return candidatos;
+    }
+
+    // Soma a melhor pontuação do termo em cada candidato e descarta os que não o contêm
+    private void pontuar(Candidatos candidatos, String termo, List<String> doTermo) {
+        byte[] melhorNoTermo = new byte[candidatos.tamanho];
+        for (String palavra : doTermo) {
+            boolean exata = palavra.length() == termo.length();
+            Ocorrencias ocorrencias = palavras.get(palavra);
+            for (int i = 0; i < ocorrencias.tamanho; i++) {
+                int item = ocorrencias.itens[i];
+                int k = Arrays.binarySearch(candidatos.ids, 0, candidatos.tamanho, item >>> 2);
+                if (k >= 0) {
+                    melhorNoTermo[k] = (byte) Math.max(melhorNoTermo[k], pontuacao(item & 3, exata));
+                }
+            }
+        }
+        int n = 0;
+        for (int k = 0; k < candidatos.tamanho; k++) {
+            if (melhorNoTermo[k] > 0) {
+                candidatos.ids[n] = candidatos.ids[k];
+                candidatos.pontos[n] = candidatos.pontos[k] + melhorNoTermo[k];
+                n++;
+            }
+        }
+        candidatos.tamanho = n;
+    }
+
+    // Seleção dos "limite" maiores por contagem de pontuação (os pontos são poucos
+    // valores pequenos), sem ordenar todos os candidatos
+    private List<String> melhores(Candidatos candidatos, int termos, int limite) {
+        int[] porPontuacao = new int[termos * NOME_EXATO + 1];
+        for (int k = 0; k < candidatos.tamanho; k++) {
+            porPontuacao[candidatos.pontos[k]]++;
+        }
+        int corte = porPontuacao.length - 1;
+        int acumulado = porPontuacao[corte];
+        while (corte > 0 && acumulado < limite) {
+            acumulado += porPontuacao[--corte];
+        }
+        List<List<String>> faixas = new ArrayList<>();
+        for (int p = 0; p < porPontuacao.length; p++) {
+            faixas.add(new ArrayList<>());
+        }
+        int selecionados = 0;
+        for (int k = 0; k < candidatos.tamanho && selecionados < acumulado; k++) {
+            if (candidatos.pontos[k] >= corte) {
+                faixas.get(candidatos.pontos[k]).add(codigoPorId[candidatos.ids[k]]);
+                selecionados++;
+            }
+        }
+        List<String> resultado = new ArrayList<>(Math.min(limite, selecionados));
+        for (int p = faixas.size() - 1; p >= 0 && resultado.size() < limite; p--) {
+            for (String codigo : faixas.get(p)) {
+                if (resultado.size() == limite) {
+                    break;
+                }
+                resultado.add(codigo);
+            }
+        }
+        return resultado;
+    }
+
+    private List<String> comPrefixo(String prefixo) {
+        List<String> encontradas = new ArrayList<>();
+        int inicio = Arrays.binarySearch(ordenadas, prefixo);
+        for (int i = inicio < 0 ? -inicio - 1 : inicio; i < ordenadas.length && ordenadas[i].startsWith(prefixo); i++) {
+            encontradas.add(ordenadas[i]);
+        }
+        for (String palavra : recentes) {
+            if (palavra.startsWith(prefixo)) {
+                encontradas.add(palavra);
+            }
+        }
+        return encontradas;
+    }
+
+    // Intercala as palavras recentes no array ordenado e descarta as que ficaram sem ocorrências
+    private void intercalar() {
+        String[] novas = recentes.toArray(new String[0]);
+        Arrays.sort(novas);
+        String[] resultado = new String[ordenadas.length + novas.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < ordenadas.length || j < novas.length) {
+            String palavra = j == novas.length || (i < ordenadas.length && ordenadas[i].compareTo(novas[j]) < 0)
+                    ? ordenadas[i++] : novas[j++];
+            if (palavras.get(palavra).tamanho > 0) {
+                resultado[n++] = palavra;
+            } else {
+                palavras.remove(palavra);
+            }
+        }
+        ordenadas = Arrays.copyOf(resultado, n);
+        recentes.clear();
+    }
+
+    private static int pontuacao(int campos, boolean exata) {
+        if ((campos & CAMPO_NOME) != 0) {
+            return exata ? NOME_EXATO : NOME_PREFIXO;
+        }
+        return exata ? DESCRICAO_EXATA : DESCRICAO_PREFIXO;
+    }
+
+    private int alocarId(String codigo) {
+        int id = livres > 0 ? idsLivres[--livres] : proximoId++;
+        if (id == codigoPorId.length) {
+            codigoPorId = Arrays.copyOf(codigoPorId, id * 2);
+        }
+        codigoPorId[id] = codigo;
+        idPorCodigo.put(codigo, id);
+        return id;
+    }
+
+    // Palavras em minúsculas e sem acentos; letras e dígitos formam palavras, o resto separa
+    static List<String> palavras(String texto) {
+        List<String> resultado = new ArrayList<>();
+        if (texto == null) {
+            return resultado;
+        }
+        char[] palavra = new char[texto.length()];
+        int tamanho = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            char convertido = c < LATIN.length ? LATIN[c] : COMPLEXO;
+            if (convertido == COMPLEXO) {
+                return palavrasNormalizadas(texto);
+            }
+            if (convertido != 0) {
+                palavra[tamanho++] = convertido;
+            } else if (tamanho > 0) {
+                resultado.add(new String(palavra, 0, tamanho));
+                tamanho = 0;
+            }
+        }
+        if (tamanho > 0) {
+            resultado.add(new String(palavra, 0, tamanho));
+        }
+        return resultado;
+    }
+
+    // Caminho geral, para textos com caracteres fora da tabela LATIN
+    private static List<String> palavrasNormalizadas(String texto) {
+        List<String> resultado = new ArrayList<>();
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        StringBuilder palavra = new StringBuilder();
+        for (int i = 0; i < normalizado.length(); i++) {
+            char c = normalizado.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                palavra.append(c);
+            } else if (palavra.length() > 0) {
+                resultado.add(palavra.toString().toLowerCase(Locale.ROOT));
+                palavra.setLength(0);
+            }
+        }
+        if (palavra.length() > 0) {
+            resultado.add(palavra.toString().toLowerCase(Locale.ROOT));
+        }
+        return resultado;
+    }
+
+    // Lista de ocorrências (id << 2 | campos) de uma palavra, sem ordem
+    private static final class Ocorrencias {
+        private int[] itens = new int[2];
+        private int tamanho;
+
+        void adicionar(int item) {
+            if (tamanho == itens.length) {
+                itens = Arrays.copyOf(itens, tamanho * 2);
+            }
+            itens[tamanho++] = item;
+        }
+
+        // Mantém só as ocorrências de ids que ainda têm código
+        void descartarMortos(String[] codigoPorId) {
+            int n = 0;
+            for (int i = 0; i < tamanho; i++) {
+                if (codigoPorId[itens[i] >>> 2] != null) {
+                    itens[n++] = itens[i];
+                }
+            }
+            tamanho = n;
+        }
+    }
+
+    // Ids candidatos da busca em ordem crescente e a pontuação acumulada de cada um
+    private static final class Candidatos {
+        private final int[] ids;
+        private final int[] pontos;
+        private int tamanho;
+
+        Candidatos(int capacidade) {
+            ids = new int[capacidade];
+            pontos = new int[capacidade];
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Produtos ordenados pela data de validade (dia desde a época), para consultas
+// por intervalo em O(log n + k) já na ordem de vencimento.
+class IndiceValidade {
+    private final NavigableMap<Long, Set<Produto>> porDia = new TreeMap<>();
+
+    void adicionar(Produto p) {
+        porDia.computeIfAbsent(p.getDataValidade().toEpochDay(), k -> new LinkedHashSet<>()).add(p);
+    }
+
+    void remover(Produto p) {
+        long dia = p.getDataValidade().toEpochDay();
+        Set<Produto> produtos = porDia.get(dia);
+        if (produtos != null && produtos.remove(p) && produtos.isEmpty()) {
+            porDia.remove(dia);
+        }
+    }
+
+    // Validade em [inicio, fim); inicio nulo inclui também os já vencidos, fim nulo não tem limite
+    List<Produto> entre(LocalDate inicio, LocalDate fim) {
+        List<Produto> resultado = new ArrayList<>();
+        faixa(inicio, fim).values().forEach(resultado::addAll);
+        return resultado;
+    }
+
+    // Quantidade de produtos na faixa, sem copiá-los (custo proporcional aos dias)
+    int contar(LocalDate inicio, LocalDate fim) {
+        int quantidade = 0;
+        for (Set<Produto> produtos : faixa(inicio, fim).values()) {
+            quantidade += produtos.size();
+        }
+        return quantidade;
+    }
+
+    private NavigableMap<Long, Set<Produto>> faixa(LocalDate inicio, LocalDate fim) {
+        if (inicio != null && fim != null && !inicio.isBefore(fim)) {
+            return new TreeMap<>();
+        }
+        if (fim == null) {
+            return inicio == null ? porDia : porDia.tailMap(inicio.toEpochDay(), true);
+        }
+        return inicio == null
+                ? porDia.headMap(fim.toEpochDay(), false)
+                : porDia.subMap(inicio.toEpochDay(), true, fim.toEpochDay(), false);
+    }
+}
@@ -0,0 +1,332 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Log de alterações somente-anexação: cada inclusão, exclusão ou movimentação de
+// estoque vira uma linha curta no fim do arquivo. A escrita acontece na thread de I/O própria do log:
+// registros que chegam enquanto uma gravação está em andamento são agrupados e
+// gravados juntos com um único fsync. O futuro de cada registro só completa
+// depois que ele estiver em disco.
+public class JournalProdutos implements Closeable {
+    // Inclusão no formato antigo (CSV sem escape), só lida na reaplicação
+    static final char INCLUSAO = '+';
+    // Inclusão com os campos de texto escapados (ver LeitorCsvProdutos.linhaEscapada),
+    // para que ';' e quebras de linha da descrição não partam o registro
+    static final char INCLUSAO_ESCAPADA = '*';
+    static final char EXCLUSAO = '-';
+    // Movimentação de estoque: código, versão e quantidade resultante (ver EstoqueVersionado)
+    static final char MOVIMENTO = '=';
+
+    private final Path arquivo;
+    private final Path arquivoRotacionado;
+    private final MetricasProdutos metricas;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "io-produtos");
+        t.setDaemon(true);
+        return t;
+    });
+    // Protege o canal: gravação de lotes, rotação e fechamento
+    private final Object escrita = new Object();
+    private FileChannel canal;
+    private int registros;
+    private List<String> pendentes = new ArrayList<>();
+    private List<CompletableFuture<Void>> aguardando = new ArrayList<>();
+    private boolean gravacaoAgendada;
+
+    public JournalProdutos(Path arquivo) throws IOException {
+        this(arquivo, new MetricasProdutos());
+    }
+
+    // Cada lote gravado conta como uma operação JOURNAL, com os bytes escritos
+    public JournalProdutos(Path arquivo, MetricasProdutos metricas) throws IOException {
+        this.arquivo = arquivo;
+        this.metricas = metricas;
+        this.arquivoRotacionado = arquivo.resolveSibling(arquivo.getFileName() + ".old");
+        descartarRegistroTruncado(arquivo);
+        this.canal = abrir(arquivo);
+    }
+
+    public CompletableFuture<Void> registrarInclusao(Produto produto) {
+        return anexar(inclusao(produto));
+    }
+
+    public CompletableFuture<Void> registrarExclusao(String codigo) {
+        return anexar(EXCLUSAO + ";" + codigo);
+    }
+
+    public CompletableFuture<Void> registrarMovimento(String codigo, long estoque) {
+        return anexar(movimento(codigo, estoque));
+    }
+
+    // Todos os registros do lote entram juntos na fila e são gravados com um único fsync
+    public synchronized CompletableFuture<Void> registrarInclusoes(Collection<Produto> produtos) {
+        for (Produto produto : produtos) {
+            pendentes.add(inclusao(produto));
+        }
+        return agendar(produtos.size());
+    }
+
+    // Estoque versionado resultante de cada produto do lote, por código
+    public synchronized CompletableFuture<Void> registrarMovimentos(Map<String, Long> estoques) {
+        estoques.forEach((codigo, estoque) -> pendentes.add(movimento(codigo, estoque)));
+        return agendar(estoques.size());
+    }
+
+    private static String inclusao(Produto produto) {
+        return INCLUSAO_ESCAPADA + ";" + LeitorCsvProdutos.linhaEscapada(produto);
+    }
+
+    private static String movimento(String codigo, long estoque) {
+        return MOVIMENTO + ";" + codigo + ";" + Integer.toUnsignedString(EstoqueVersionado.versao(estoque))
+                + ";" + EstoqueVersionado.quantidade(estoque);
+    }
+
+    private synchronized CompletableFuture<Void> anexar(String registro) {
+        pendentes.add(registro);
+        return agendar(1);
+    }
+
+    private CompletableFuture<Void> agendar(int quantidade) {
+        CompletableFuture<Void> gravado = new CompletableFuture<>();
+        aguardando.add(gravado);
+        registros += quantidade;
+        if (!gravacaoAgendada) {
+            gravacaoAgendada = true;
+            io.execute(this::gravarPendentes);
+        }
+        return gravado;
+    }
+
+    private void gravarPendentes() {
+        synchronized (escrita) {
+            gravarLote();
+        }
+    }
+
+    // Chamado com o monitor de escrita
+    private void gravarLote() {
+        List<String> lote;
+        List<CompletableFuture<Void>> futuros;
+        synchronized (this) {
+            lote = pendentes;
+            futuros = aguardando;
+            pendentes = new ArrayList<>();
+            aguardando = new ArrayList<>();
+            gravacaoAgendada = false;
+        }
+        if (lote.isEmpty()) {
+            futuros.forEach(f -> f.complete(null));
+            return;
+        }
+        StringBuilder texto = new StringBuilder();
+        for (String registro : lote) {
+            texto.append(registro).append('\n');
+        }
+        try (MetricasProdutos.Medicao medicao = metricas.iniciar(MetricasProdutos.Operacao.JOURNAL)) {
+            ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(texto));
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            canal.force(false);
+            medicao.gravados(bytes);
+            medicao.sucesso();
+            futuros.forEach(f -> f.complete(null));
+        } catch (IOException e) {
+            metricas.falhaPersistencia(e);
+            futuros.forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    public synchronized int getRegistros() {
+        return registros;
+    }
+
+    // Move o log atual para o arquivo ".old" e passa a anexar em um log vazio.
+    // Registros ainda pendentes são gravados antes, no log que está saindo, porque o
+    // snapshot que motivou a rotação já os contém. O ".old" só é apagado depois que
+    // o novo snapshot estiver gravado.
+    //
+    // Se um ".old" anterior ainda existe (a gravação do snapshot falhou), ele continua
+    // valendo: o log atual é acrescentado ao fim dele em vez de substituí-lo. Uma queda
+    // entre a cópia e a remoção só faz os registros serem reaplicados duas vezes, o que
+    // é inofensivo. O canal é reaberto mesmo que a rotação falhe.
+    public void rotacionar() throws IOException {
+        synchronized (escrita) {
+            gravarLote();
+            canal.close();
+            try {
+                if (possuiRotacionado()) {
+                    acrescentar(arquivo, arquivoRotacionado);
+                    Files.delete(arquivo);
+                } else {
+                    Files.move(arquivo, arquivoRotacionado, StandardCopyOption.ATOMIC_MOVE);
+                }
+                synchronized (this) {
+                    registros = 0;
+                }
+            } finally {
+                canal = abrir(arquivo);
+            }
+        }
+    }
+
+    private static void acrescentar(Path origem, Path destino) throws IOException {
+        try (FileChannel leitura = FileChannel.open(origem, StandardOpenOption.READ);
+             FileChannel anexo = FileChannel.open(destino, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long posicao = 0;
+            long tamanho = leitura.size();
+            while (posicao < tamanho) {
+                posicao += leitura.transferTo(posicao, tamanho - posicao, anexo);
+            }
+            anexo.force(false);
+        }
+    }
+
+    public boolean possuiRotacionado() {
+        return Files.exists(arquivoRotacionado);
+    }
+
+    public void descartarRotacionado() throws IOException {
+        Files.deleteIfExists(arquivoRotacionado);
+    }
+
+    // Reaplica primeiro o log rotacionado (compactação interrompida) e depois o atual.
+    // Inclusões, exclusões e movimentações (versionadas) são idempotentes, então
+    // reaplicar sobre um snapshot que já as contém leva ao mesmo estado.
+    // As inclusões chegam sempre no formato escapado, inclusive as do formato antigo.
+    public static void reproduzir(Path arquivo, Consumer<String> inclusao, Consumer<String> exclusao,
+                                  Consumer<String> movimento) {
+        reproduzir(arquivo, new MetricasProdutos(), inclusao, exclusao, movimento);
+    }
+
+    // Registros truncados ou de tipo desconhecido contam como ignorados e falhas de
+    // leitura como falhas de persistência; os registros entregues são contados por quem
+    // os aplica
+    public static void reproduzir(Path arquivo, MetricasProdutos metricas, Consumer<String> inclusao,
+                                  Consumer<String> exclusao, Consumer<String> movimento) {
+        reproduzirArquivo(arquivo.resolveSibling(arquivo.getFileName() + ".old"), metricas, inclusao, exclusao, movimento);
+        reproduzirArquivo(arquivo, metricas, inclusao, exclusao, movimento);
+    }
+
+    private static void reproduzirArquivo(Path arquivo, MetricasProdutos metricas, Consumer<String> inclusao,
+                                          Consumer<String> exclusao, Consumer<String> movimento) {
+        if (!Files.exists(arquivo)) {
+            return;
+        }
+        try (BufferedReader br = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            boolean terminaComQuebra = terminaComQuebraDeLinha(arquivo);
+            String line = br.readLine();
+            while (line != null) {
+                String proxima = br.readLine();
+                // A última linha sem '\n' é um registro truncado por uma queda no meio da escrita
+                if (proxima != null || terminaComQuebra) {
+                    if (!aplicar(line, inclusao, exclusao, movimento)) {
+                        metricas.registroIgnorado(arquivo, line);
+                    }
+                } else {
+                    metricas.registroIgnorado(arquivo, "final truncado");
+                }
+                line = proxima;
+            }
+        } catch (IOException e) {
+            metricas.falhaPersistencia(e);
+        }
+    }
+
+    // false para um registro que não é de nenhum tipo conhecido
+    private static boolean aplicar(String registro, Consumer<String> inclusao, Consumer<String> exclusao,
+                                   Consumer<String> movimento) {
+        if (registro.length() < 2 || registro.charAt(1) != ';') {
+            return false;
+        }
+        String conteudo = registro.substring(2);
+        if (registro.charAt(0) == INCLUSAO_ESCAPADA) {
+            inclusao.accept(conteudo);
+        } else if (registro.charAt(0) == INCLUSAO) {
+            // Sem ';' nem quebras nos campos (senão o registro já era inválido), basta escapar '\'
+            inclusao.accept(conteudo.replace("\\", "\\\\"));
+        } else if (registro.charAt(0) == EXCLUSAO) {
+            exclusao.accept(conteudo);
+        } else if (registro.charAt(0) == MOVIMENTO) {
+            movimento.accept(conteudo);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean terminaComQuebraDeLinha(Path arquivo) throws IOException {
+        try (FileChannel leitura = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = leitura.size();
+            if (tamanho == 0) {
+                return true;
+            }
+            ByteBuffer ultimo = ByteBuffer.allocate(1);
+            leitura.read(ultimo, tamanho - 1);
+            return ultimo.get(0) == '\n';
+        }
+    }
+
+    // Corta o final incompleto deixado por uma queda, para que o próximo registro
+    // não seja anexado à mesma linha.
+    private static void descartarRegistroTruncado(Path arquivo) throws IOException {
+        if (!Files.exists(arquivo) || terminaComQuebraDeLinha(arquivo)) {
+            return;
+        }
+        try (FileChannel escrita = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer byteAtual = ByteBuffer.allocate(1);
+            long posicao = escrita.size() - 1;
+            while (posicao >= 0) {
+                byteAtual.clear();
+                escrita.read(byteAtual, posicao);
+                if (byteAtual.get(0) == '\n') {
+                    break;
+                }
+                posicao--;
+            }
+            escrita.truncate(posicao + 1);
+            escrita.force(true);
+        }
+    }
+
+    private static FileChannel abrir(Path arquivo) throws IOException {
+        return FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    // Grava o que estiver pendente antes de fechar o arquivo
+    @Override
+    public void close() throws IOException {
+        io.shutdown();
+        try {
+            io.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (escrita) {
+            canal.close();
+        }
+    }
+}
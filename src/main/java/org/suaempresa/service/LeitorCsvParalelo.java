@@ -0,0 +1,170 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+// Carga paralela de produtos.csv: o arquivo é mapeado em memória em blocos que
+// terminam sempre em uma quebra de linha, cada bloco é interpretado em uma tarefa
+// do fork-join pool e os resultados são entregues ao destino na ordem do arquivo.
+// Só uma janela de blocos fica em andamento: cada bloco é entregue assim que ele e os
+// anteriores terminam, então a memória de pico é de poucos blocos, não do catálogo.
+// As quebras de linha são as do BufferedReader (LeitorCsvProdutos): "\n", "\r" ou "\r\n".
+public class LeitorCsvParalelo {
+    static final long TAMANHO_BLOCO = 8L * 1024 * 1024;
+
+    private final List<Categoria> categorias;
+    private final ForkJoinPool pool;
+    private final long tamanhoBloco;
+
+    public LeitorCsvParalelo(List<Categoria> categorias) {
+        this(categorias, ForkJoinPool.commonPool(), TAMANHO_BLOCO);
+    }
+
+    public LeitorCsvParalelo(List<Categoria> categorias, ForkJoinPool pool, long tamanhoBloco) {
+        this.categorias = categorias;
+        this.pool = pool;
+        this.tamanhoBloco = tamanhoBloco;
+    }
+
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino) throws IOException {
+        return carregar(arquivo, destino, progresso -> { });
+    }
+
+    // O progresso (0 a 1) avança a cada bloco entregue ao destino
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino, DoubleConsumer progresso) throws IOException {
+        ResultadoCarga resultado = new ResultadoCarga();
+        long inicioCarga = System.nanoTime();
+        Deque<Future<Bloco>> emAndamento = new ArrayDeque<>();
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            List<long[]> blocos = dividirEmBlocos(canal);
+            int janela = Math.max(2, pool.getParallelism() * 2);
+            int proximo = 0;
+            long linhasAnteriores = 0;
+            int entregues = 0;
+            while (entregues < blocos.size()) {
+                while (proximo < blocos.size() && emAndamento.size() < janela) {
+                    long[] limites = blocos.get(proximo++);
+                    emAndamento.add(pool.submit(() -> interpretar(canal, limites[0], limites[1])));
+                }
+                Bloco bloco = emAndamento.poll().get();
+                bloco.produtos.forEach(destino);
+                resultado.registrarLinhas(bloco.produtos.size());
+                for (ResultadoCarga.ErroLinha erro : bloco.erros) {
+                    resultado.registrarErro(linhasAnteriores + erro.getNumeroLinha(), erro.getMensagem());
+                }
+                linhasAnteriores += bloco.linhas;
+                progresso.accept((double) ++entregues / blocos.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carga de " + arquivo + " interrompida.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Falha ao carregar " + arquivo + ".", e.getCause());
+        } finally {
+            // Numa falha, os blocos ainda em andamento não serão entregues
+            emAndamento.forEach(futuro -> futuro.cancel(true));
+        }
+        resultado.finalizar(System.nanoTime() - inicioCarga);
+        return resultado;
+    }
+
+    // Cada bloco tem aproximadamente tamanhoBloco bytes e é estendido até a próxima quebra
+    // de linha; um "\r\n" nunca é separado entre dois blocos
+    private List<long[]> dividirEmBlocos(FileChannel canal) throws IOException {
+        List<long[]> blocos = new ArrayList<>();
+        long tamanho = canal.size();
+        ByteBuffer leitura = ByteBuffer.allocate(4096);
+        long inicio = 0;
+        while (inicio < tamanho) {
+            long fim = Math.min(inicio + tamanhoBloco, tamanho);
+            while (fim < tamanho) {
+                leitura.clear();
+                int lidos = canal.read(leitura, fim);
+                int quebra = -1;
+                for (int i = 0; i < lidos; i++) {
+                    if (leitura.get(i) == '\n' || leitura.get(i) == '\r') {
+                        quebra = i;
+                        break;
+                    }
+                }
+                if (quebra >= 0) {
+                    fim += quebra + 1;
+                    if (leitura.get(quebra) == '\r' && fim < tamanho && byteEm(canal, fim) == '\n') {
+                        fim++;
+                    }
+                    break;
+                }
+                fim = Math.min(fim + lidos, tamanho);
+            }
+            blocos.add(new long[]{inicio, fim});
+            inicio = fim;
+        }
+        return blocos;
+    }
+
+    private static byte byteEm(FileChannel canal, long posicao) throws IOException {
+        ByteBuffer umByte = ByteBuffer.allocate(1);
+        canal.read(umByte, posicao);
+        return umByte.get(0);
+    }
+
+    private Bloco interpretar(FileChannel canal, long inicio, long fim) {
+        MappedByteBuffer mapeado;
+        try {
+            mapeado = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        CharBuffer texto = StandardCharsets.UTF_8.decode(mapeado);
+        LeitorCsvProdutos leitor = new LeitorCsvProdutos(categorias);
+        Bloco bloco = new Bloco();
+
+        int tamanho = texto.length();
+        int inicioLinha = 0;
+        while (inicioLinha < tamanho) {
+            int fimLinha = inicioLinha;
+            while (fimLinha < tamanho && texto.get(fimLinha) != '\n' && texto.get(fimLinha) != '\r') {
+                fimLinha++;
+            }
+            bloco.linhas++;
+            if (fimLinha > inicioLinha) {
+                try {
+                    bloco.produtos.add(leitor.parseLinha(texto.subSequence(inicioLinha, fimLinha).toString()));
+                } catch (IllegalArgumentException e) {
+                    bloco.erros.add(new ResultadoCarga.ErroLinha(bloco.linhas, e.getMessage()));
+                }
+            }
+            boolean crlf = fimLinha + 1 < tamanho && texto.get(fimLinha) == '\r' && texto.get(fimLinha + 1) == '\n';
+            inicioLinha = fimLinha + (crlf ? 2 : 1);
+        }
+        return bloco;
+    }
+
+    private static class Bloco {
+        private final List<Produto> produtos = new ArrayList<>();
+        private final List<ResultadoCarga.ErroLinha> erros = new ArrayList<>();
+        private long linhas;
+    }
+}
@@ -0,0 +1,222 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
+
+// Leitor de produtos.csv: separa os campos em uma única passada sobre a linha,
+// sem regex nem substrings intermediárias para números e datas.
+// Mantém buffers próprios, portanto cada thread deve usar a sua instância.
+public class LeitorCsvProdutos {
+    static final int CAMPOS = 9;
+    static final int INTERVALO_PROGRESSO = 10_000;
+
+    private final TabelaCategorias categorias;
+    private final int[] inicio = new int[CAMPOS];
+    private final int[] fim = new int[CAMPOS];
+    private char[] buffer = new char[256];
+
+    public LeitorCsvProdutos(List<Categoria> categorias) {
+        this.categorias = new TabelaCategorias(categorias);
+    }
+
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino) throws IOException {
+        return carregar(arquivo, destino, progresso -> { });
+    }
+
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino, DoubleConsumer progresso) throws IOException {
+        return carregar(arquivo, destino, produto -> null, progresso);
+    }
+
+    // validacao devolve a mensagem de erro do produto, ou null para aceitá-lo.
+    // O progresso (0 a 1) é estimado pelos caracteres lidos em relação ao tamanho do arquivo
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino, Function<Produto, String> validacao,
+                                   DoubleConsumer progresso) throws IOException {
+        ResultadoCarga resultado = new ResultadoCarga();
+        long inicioCarga = System.nanoTime();
+        double tamanhoArquivo = Math.max(1, Files.size(arquivo));
+        long lidos = 0;
+        try (BufferedReader br = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String line;
+            int numeroLinha = 0;
+            while ((line = br.readLine()) != null) {
+                numeroLinha++;
+                lidos += line.length() + 1;
+                if (numeroLinha % INTERVALO_PROGRESSO == 0) {
+                    progresso.accept(Math.min(1, lidos / tamanhoArquivo));
+                }
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    Produto produto = parseLinha(line);
+                    String erro = validacao.apply(produto);
+                    if (erro == null) {
+                        destino.accept(produto);
+                        resultado.registrarLinha();
+                    } else {
+                        resultado.registrarErro(numeroLinha, erro);
+                    }
+                } catch (IllegalArgumentException e) {
+                    resultado.registrarErro(numeroLinha, e.getMessage());
+                }
+            }
+        }
+        progresso.accept(1);
+        resultado.finalizar(System.nanoTime() - inicioCarga);
+        return resultado;
+    }
+
+    public Produto parseLinha(String line) {
+        int tamanho = line.length();
+        if (buffer.length < tamanho) {
+            buffer = new char[Math.max(tamanho, buffer.length * 2)];
+        }
+        line.getChars(0, tamanho, buffer, 0);
+
+        int campo = 0;
+        inicio[0] = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (buffer[i] == ';') {
+                if (campo == CAMPOS - 1) {
+                    throw new IllegalArgumentException("mais de " + CAMPOS + " campos");
+                }
+                fim[campo] = i;
+                inicio[++campo] = i + 1;
+            }
+        }
+        fim[campo] = tamanho;
+        if (campo != CAMPOS - 1) {
+            throw new IllegalArgumentException("esperados " + CAMPOS + " campos, encontrados " + (campo + 1));
+        }
+
+        try {
+            return new Produto(
+                    line.substring(inicio[0], fim[0]),
+                    line.substring(inicio[1], fim[1]),
+                    line.substring(inicio[2], fim[2]),
+                    data(line, 3),
+                    data(line, 4),
+                    decimal(5),
+                    decimal(6),
+                    inteiro(line, 7),
+                    categorias.buscar(inteiro(line, 8))
+            );
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new IllegalArgumentException("valor inválido: " + e.getMessage());
+        }
+    }
+
+    // Linha do journal: os campos de texto vêm escapados (ver linhaEscapada), então
+    // continuam sendo 9 campos separados por ';' qualquer que seja o texto do produto
+    public Produto parseLinhaEscapada(String line) {
+        Produto produto = parseLinha(line);
+        produto.setCodigo(desescapar(produto.getCodigo()));
+        produto.setNome(desescapar(produto.getNome()));
+        produto.setDescricao(desescapar(produto.getDescricao()));
+        return produto;
+    }
+
+    // Mesmos campos de Produto.toString(), com os campos de texto escapados: \ vira \\,
+    // ; vira \p, as quebras de linha viram \n e \r, e null vira \0
+    static String linhaEscapada(Produto p) {
+        return escapar(p.getCodigo()) + ";" + escapar(p.getNome()) + ";" + escapar(p.getDescricao()) + ";"
+                + p.getDataFabricacao() + ";" + p.getDataValidade() + ";" + p.getPrecoCompra() + ";"
+                + p.getPrecoVenda() + ";" + p.getQuantidadeEstoque() + ";" + p.getCategoria().getId();
+    }
+
+    static String escapar(String texto) {
+        if (texto == null) {
+            return "\\0";
+        }
+        StringBuilder escapado = null;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            String troca = switch (c) {
+                case '\\' -> "\\\\";
+                case ';' -> "\\p";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                default -> null;
+            };
+            if (troca != null && escapado == null) {
+                escapado = new StringBuilder(texto.length() + 8).append(texto, 0, i);
+            }
+            if (escapado != null) {
+                if (troca != null) {
+                    escapado.append(troca);
+                } else {
+                    escapado.append(c);
+                }
+            }
+        }
+        return escapado == null ? texto : escapado.toString();
+    }
+
+    static String desescapar(String texto) {
+        if (texto.indexOf('\\') < 0) {
+            return texto;
+        }
+        if (texto.equals("\\0")) {
+            return null;
+        }
+        StringBuilder original = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c != '\\' || i + 1 == texto.length()) {
+                original.append(c);
+                continue;
+            }
+            char codigo = texto.charAt(++i);
+            switch (codigo) {
+                case 'p' -> original.append(';');
+                case 'n' -> original.append('\n');
+                case 'r' -> original.append('\r');
+                case '\\' -> original.append('\\');
+                default -> throw new IllegalArgumentException("escape inválido: \\" + codigo);
+            }
+        }
+        return original.toString();
+    }
+
+    private BigDecimal decimal(int campo) {
+        return new BigDecimal(buffer, inicio[campo], fim[campo] - inicio[campo]);
+    }
+
+    private int inteiro(String line, int campo) {
+        return Integer.parseInt(line, inicio[campo], fim[campo], 10);
+    }
+
+    // Formato ISO (aaaa-mm-dd) lido dígito a dígito; outros formatos caem no parser padrão
+    private LocalDate data(String line, int campo) {
+        int i = inicio[campo];
+        if (fim[campo] - i != 10 || buffer[i + 4] != '-' || buffer[i + 7] != '-') {
+            return LocalDate.parse(line.subSequence(i, fim[campo]));
+        }
+        return LocalDate.of(digitos(i, 4), digitos(i + 5, 2), digitos(i + 8, 2));
+    }
+
+    private int digitos(int posicao, int quantidade) {
+        int valor = 0;
+        for (int i = posicao; i < posicao + quantidade; i++) {
+            int d = buffer[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new DateTimeException("data inválida");
+            }
+            valor = valor * 10 + d;
+        }
+        return valor;
+    }
+}
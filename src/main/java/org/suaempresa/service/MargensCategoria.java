@@ -0,0 +1,32 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Linha do relatório de precificação: margem média exata da categoria e os produtos
+// com as maiores e as menores margens (ver ProdutoService.relatorioPrecificacao)
+public class MargensCategoria {
+    private final String categoria;
+    private final long quantidade;
+    private final BigDecimal media;
+    private final List<Produto> maiores;
+    private final List<Produto> menores;
+
+    MargensCategoria(String categoria, SomaMargem soma, ExtremosMargem extremos) {
+        this.categoria = categoria;
+        this.quantidade = soma.getQuantidade();
+        this.media = soma.media();
+        this.maiores = extremos.getMaiores();
+        this.menores = extremos.getMenores();
+    }
+
+    public String getCategoria() { return categoria; }
+    public long getQuantidade() { return quantidade; }
+    public BigDecimal getMedia() { return media; }
+    // Da maior margem para a menor
+    public List<Produto> getMaiores() { return maiores; }
+    // Da menor margem para a maior
+    public List<Produto> getMenores() { return menores; }
+}
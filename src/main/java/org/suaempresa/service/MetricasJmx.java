@@ -0,0 +1,132 @@
+package org.suaempresa.service;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// MBean somente-leitura com um atributo por número das métricas: os totais
+// ("bytesLidos") e, por operação, "<operacao>.<estatistica>" ("cadastro.p99Micros")
+class MetricasJmx implements DynamicMBean {
+    private static final String[] ESTATISTICAS = {
+            "contagem", "erros", "mediaMicros", "p50Micros", "p99Micros", "maximoMicros"
+    };
+
+    private final MetricasProdutos metricas;
+    private final MBeanInfo info;
+
+    MetricasJmx(MetricasProdutos metricas) {
+        this.metricas = metricas;
+        List<MBeanAttributeInfo> atributos = new ArrayList<>();
+        atributos.add(atributo("tamanhoCatalogo", "int", "Produtos no catálogo"));
+        atributos.add(atributo("bytesLidos", "long", "Bytes lidos de produtos.bin, produtos.csv e importações"));
+        atributos.add(atributo("bytesGravados", "long", "Bytes gravados no journal, no snapshot e em exportações"));
+        atributos.add(atributo("falhasPersistencia", "long", "Falhas de leitura ou gravação em disco"));
+        atributos.add(atributo("registrosReaplicados", "long", "Registros do journal reaplicados na abertura"));
+        atributos.add(atributo("registrosIgnorados", "long", "Registros do journal ignorados na abertura"));
+        for (MetricasProdutos.Operacao operacao : MetricasProdutos.Operacao.values()) {
+            for (String estatistica : ESTATISTICAS) {
+                atributos.add(atributo(nome(operacao) + "." + estatistica, "long", estatistica + " de " + nome(operacao)));
+            }
+        }
+        this.info = new MBeanInfo(getClass().getName(), "Métricas do ProdutoService",
+                atributos.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+
+    @Override
+    public Object getAttribute(String atributo) throws AttributeNotFoundException {
+        switch (atributo) {
+            case "tamanhoCatalogo":
+                return metricas.getTamanhoCatalogo();
+            case "bytesLidos":
+                return metricas.getBytesLidos();
+            case "bytesGravados":
+                return metricas.getBytesGravados();
+            case "falhasPersistencia":
+                return metricas.getFalhasPersistencia();
+            case "registrosReaplicados":
+                return metricas.getRegistrosReaplicados();
+            case "registrosIgnorados":
+                return metricas.getRegistrosIgnorados();
+            default:
+                break;
+        }
+        int ponto = atributo.indexOf('.');
+        if (ponto > 0) {
+            for (MetricasProdutos.Operacao operacao : MetricasProdutos.Operacao.values()) {
+                if (nome(operacao).equals(atributo.substring(0, ponto))) {
+                    return estatistica(operacao, atributo.substring(ponto + 1), atributo);
+                }
+            }
+        }
+        throw new AttributeNotFoundException(atributo);
+    }
+
+    private Object estatistica(MetricasProdutos.Operacao operacao, String estatistica, String atributo)
+            throws AttributeNotFoundException {
+        switch (estatistica) {
+            case "contagem":
+                return metricas.contagem(operacao);
+            case "erros":
+                return metricas.erros(operacao);
+            case "mediaMicros":
+                return metricas.mediaMicros(operacao);
+            case "p50Micros":
+                return metricas.percentilMicros(operacao, 50);
+            case "p99Micros":
+                return metricas.percentilMicros(operacao, 99);
+            case "maximoMicros":
+                return metricas.maximoMicros(operacao);
+            default:
+                throw new AttributeNotFoundException(atributo);
+        }
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] atributos) {
+        AttributeList lista = new AttributeList();
+        for (String atributo : atributos) {
+            try {
+                lista.add(new Attribute(atributo, getAttribute(atributo)));
+            } catch (AttributeNotFoundException e) {
+                // Atributos desconhecidos ficam fora da lista, como pede DynamicMBean
+            }
+        }
+        return lista;
+    }
+
+    @Override
+    public void setAttribute(Attribute atributo) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Atributo somente leitura: " + atributo.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList atributos) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String operacao, Object[] parametros, String[] assinatura) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(operacao));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        return info;
+    }
+
+    private static String nome(MetricasProdutos.Operacao operacao) {
+        return operacao.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static MBeanAttributeInfo atributo(String nome, String tipo, String descricao) {
+        return new MBeanAttributeInfo(nome, tipo, descricao, true, false, false);
+    }
+}
@@ -0,0 +1,243 @@
+package org.suaempresa.service;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanRegistrationException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+// Métricas do ProdutoService: latência e erros por operação, bytes lidos e gravados,
+// falhas de persistência, registros do journal reaplicados e ignorados na abertura e
+// tamanho do catálogo. Os mesmos números são expostos por JMX
+// (org.suaempresa:type=ProdutoService), podem ser anexados periodicamente a um
+// arquivo e cada operação medida gera um evento JFR (EventoOperacao). Falhas e
+// registros ignorados também vão para o System.Logger desta classe.
+public class MetricasProdutos {
+    private static final System.Logger LOG = System.getLogger(MetricasProdutos.class.getName());
+
+    public enum Operacao {
+        CARGA, CONSULTA, LISTAGEM, PESQUISA, FILTRO, RELATORIO,
+        CADASTRO, ATUALIZACAO, EXCLUSAO, MOVIMENTACAO, IMPORTACAO, EXPORTACAO,
+        // Escrita de um lote do journal com fsync e gravação do snapshot binário
+        JOURNAL, SNAPSHOT
+    }
+
+    private final Map<Operacao, HistogramaLatencia> latencias = new EnumMap<>(Operacao.class);
+    private final LongAdder bytesLidos = new LongAdder();
+    private final LongAdder bytesGravados = new LongAdder();
+    private final LongAdder falhasPersistencia = new LongAdder();
+    private final LongAdder registrosReaplicados = new LongAdder();
+    private final LongAdder registrosIgnorados = new LongAdder();
+    private volatile IntSupplier tamanhoCatalogo = () -> 0;
+    private ObjectName nomeJmx;
+    private ScheduledExecutorService registrador;
+
+    public MetricasProdutos() {
+        for (Operacao operacao : Operacao.values()) {
+            latencias.put(operacao, new HistogramaLatencia());
+        }
+    }
+
+    // Uso: try (Medicao m = metricas.iniciar(...)) { ...; m.sucesso(); } — sem a chamada
+    // a sucesso() a operação conta como erro
+    Medicao iniciar(Operacao operacao) {
+        return new Medicao(operacao);
+    }
+
+    // Falha de leitura ou gravação em disco: contada e registrada como erro
+    void falhaPersistencia(Exception e) {
+        falhasPersistencia.increment();
+        LOG.log(System.Logger.Level.ERROR, "Falha de leitura ou gravação em disco", e);
+    }
+
+    // Registro do journal aplicado ao catálogo na abertura
+    void registroReaplicado() {
+        registrosReaplicados.increment();
+    }
+
+    // Registro do journal descartado na abertura (truncado, de tipo desconhecido ou
+    // com campos inválidos): contado e registrado como aviso
+    void registroIgnorado(Path arquivo, String motivo) {
+        registrosIgnorados.increment();
+        LOG.log(System.Logger.Level.WARNING, "{0}: registro ignorado: {1}", arquivo, motivo);
+    }
+
+    void setTamanhoCatalogo(IntSupplier tamanho) {
+        this.tamanhoCatalogo = tamanho;
+    }
+
+    public long contagem(Operacao operacao) {
+        return latencias.get(operacao).contagem();
+    }
+
+    public long erros(Operacao operacao) {
+        return latencias.get(operacao).erros();
+    }
+
+    public long mediaMicros(Operacao operacao) {
+        return latencias.get(operacao).mediaMicros();
+    }
+
+    public long percentilMicros(Operacao operacao, double percentil) {
+        return latencias.get(operacao).percentilMicros(percentil);
+    }
+
+    public long maximoMicros(Operacao operacao) {
+        return latencias.get(operacao).maximoMicros();
+    }
+
+    public long getBytesLidos() {
+        return bytesLidos.sum();
+    }
+
+    public long getBytesGravados() {
+        return bytesGravados.sum();
+    }
+
+    public long getFalhasPersistencia() {
+        return falhasPersistencia.sum();
+    }
+
+    public long getRegistrosReaplicados() {
+        return registrosReaplicados.sum();
+    }
+
+    public long getRegistrosIgnorados() {
+        return registrosIgnorados.sum();
+    }
+
+    public int getTamanhoCatalogo() {
+        return tamanhoCatalogo.getAsInt();
+    }
+
+    // Uma linha com os totais e uma por operação já executada
+    public String resumo() {
+        String agora = LocalDateTime.now().withNano(0).toString();
+        StringBuilder texto = new StringBuilder();
+        texto.append(agora).append(" catalogo=").append(getTamanhoCatalogo())
+                .append(" bytesLidos=").append(getBytesLidos())
+                .append(" bytesGravados=").append(getBytesGravados())
+                .append(" falhasPersistencia=").append(getFalhasPersistencia())
+                .append(" registrosReaplicados=").append(getRegistrosReaplicados())
+                .append(" registrosIgnorados=").append(getRegistrosIgnorados())
+                .append(System.lineSeparator());
+        for (Operacao operacao : Operacao.values()) {
+            if (contagem(operacao) > 0) {
+                texto.append(agora).append(' ').append(operacao.name().toLowerCase(Locale.ROOT))
+                        .append(" contagem=").append(contagem(operacao))
+                        .append(" erros=").append(erros(operacao))
+                        .append(" mediaUs=").append(mediaMicros(operacao))
+                        .append(" p50Us=").append(percentilMicros(operacao, 50))
+                        .append(" p99Us=").append(percentilMicros(operacao, 99))
+                        .append(" maximoUs=").append(maximoMicros(operacao))
+                        .append(System.lineSeparator());
+            }
+        }
+        return texto.toString();
+    }
+
+    // Anexa o resumo ao arquivo a cada intervalo, em uma thread própria
+    synchronized void iniciarRegistro(Path arquivo, Duration intervalo) {
+        if (registrador != null) {
+            return;
+        }
+        registrador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-produtos");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = intervalo.toMillis();
+        registrador.scheduleAtFixedRate(() -> anexarResumo(arquivo), periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    private void anexarResumo(Path arquivo) {
+        try {
+            Files.writeString(arquivo, resumo(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            falhaPersistencia(e);
+        }
+    }
+
+    // Vários serviços no mesmo processo (benchmarks) usam nomes diferentes
+    synchronized void registrarJmx(String nome) {
+        try {
+            ObjectName objeto = new ObjectName("org.suaempresa:type=ProdutoService,name=" + ObjectName.quote(nome));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricasJmx(this), objeto);
+            nomeJmx = objeto;
+        } catch (JMException e) {
+            LOG.log(System.Logger.Level.WARNING, "Métricas não registradas no JMX", e);
+        }
+    }
+
+    synchronized void encerrar() {
+        if (registrador != null) {
+            registrador.shutdown();
+            registrador = null;
+        }
+        if (nomeJmx != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(nomeJmx);
+            } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+                LOG.log(System.Logger.Level.WARNING, "Métricas não removidas do JMX", e);
+            }
+            nomeJmx = null;
+        }
+    }
+
+    // Uma operação em andamento: mede a duração e emite o evento JFR ao fechar
+    final class Medicao implements AutoCloseable {
+        private final Operacao operacao;
+        private final EventoOperacao evento = new EventoOperacao();
+        private final long inicio;
+        private long bytes;
+        private boolean sucesso;
+
+        private Medicao(Operacao operacao) {
+            this.operacao = operacao;
+            evento.begin();
+            this.inicio = System.nanoTime();
+        }
+
+        void lidos(long quantidade) {
+            bytes += quantidade;
+            bytesLidos.add(quantidade);
+        }
+
+        void gravados(long quantidade) {
+            bytes += quantidade;
+            bytesGravados.add(quantidade);
+        }
+
+        void sucesso() {
+            sucesso = true;
+        }
+
+        @Override
+        public void close() {
+            latencias.get(operacao).registrar(System.nanoTime() - inicio, sucesso);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.operacao = operacao.name();
+                evento.bytes = bytes;
+                evento.sucesso = sucesso;
+                evento.commit();
+            }
+        }
+    }
+}
@@ -1,110 +1,485 @@
 package org.suaempresa.service;
 
 import org.suaempresa.model.Categoria;
+import org.suaempresa.model.MovimentoEstoque;
 import org.suaempresa.model.Produto;
 
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+import java.util.function.Supplier;
 
 public class ProdutoService {
-    private List<Produto> produtos;
+    private static final System.Logger LOG = System.getLogger(ProdutoService.class.getName());
+    // Quantidade de registros no log que dispara a compactação em segundo plano
+    private static final int LIMITE_COMPACTACAO = 1000;
+    // Acima deste tamanho o produtos.csv é carregado em blocos paralelos mapeados em memória
+    private static final long LIMITE_CARGA_PARALELA = 16L * 1024 * 1024;
+    private static final int DIAS_PROXIMO_VENCIMENTO = 60;
+    private static final int TAMANHO_CODIGO = 8;
+
+    // Produtos na ordem de inserção e os índices das consultas e relatórios
+    private ArmazenamentoProdutos produtos;
+    private final IndiceTexto indiceTexto = new IndiceTexto();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private List<Categoria> categorias;
-    private final String CSV_FILE = "produtos.csv";
-    private final String CSV_CATEGORIA_FILE = "categorias.csv";
+    private final Path CSV_FILE;
+    private final Path SNAPSHOT_FILE;
+    private final Path CSV_CATEGORIA_FILE;
+    private final Path LOG_FILE;
+    private final Path METRICAS_FILE;
+    private final MetricasProdutos metricas = new MetricasProdutos();
+    private final PublicadorEventos eventos = new PublicadorEventos();
+    private JournalProdutos journal;
+    private LeitorCsvProdutos leitor;
+    private ResultadoCarga ultimaCarga;
+    private final ExecutorService compactador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "compactacao-produtos");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean compactando = new AtomicBoolean();
 
     public ProdutoService() {
-        produtos = new ArrayList<>();
+        this(Path.of("."));
+    }
+
+    public ProdutoService(Path diretorio) {
+        this(diretorio, progresso -> { });
+    }
+
+    // O progresso (0 a 1) cobre a carga do catálogo e a reaplicação do log
+    public ProdutoService(Path diretorio, DoubleConsumer progresso) {
+        this(diretorio, progresso, TipoArmazenamento.OBJETOS);
+    }
+
+    public ProdutoService(Path diretorio, DoubleConsumer progresso, TipoArmazenamento armazenamento) {
+        CSV_FILE = diretorio.resolve("produtos.csv");
+        SNAPSHOT_FILE = diretorio.resolve("produtos.bin");
+        CSV_CATEGORIA_FILE = diretorio.resolve("categorias.csv");
+        LOG_FILE = diretorio.resolve("produtos.log");
+        METRICAS_FILE = diretorio.resolve("metricas.log");
         categorias = new ArrayList<>();
         carregarCategorias();
-        carregarProdutos();
+        produtos = armazenamento == TipoArmazenamento.COLUNAR
+                ? new CatalogoColunar(new TabelaCategorias(categorias))
+                : new CatalogoObjetos();
+        leitor = new LeitorCsvProdutos(categorias);
+        carregarProdutos(p -> progresso.accept(p * 0.9));
+        JournalProdutos.reproduzir(LOG_FILE, metricas,
+                this::reproduzirInclusao,
+                this::reproduzirExclusao,
+                this::reproduzirMovimento);
+        progresso.accept(1);
+        try {
+            journal = new JournalProdutos(LOG_FILE, metricas);
+            // Compactação interrompida na execução anterior: conclui antes de aceitar novas alterações
+            if (journal.possuiRotacionado()) {
+                salvarProdutos(produtos.copia());
+                journal.descartarRotacionado();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o log de produtos.", e);
+        }
+        // Só com o catálogo carregado: o JMX pode ler o tamanho a partir daqui, de outra thread
+        metricas.setTamanhoCatalogo(this::quantidadeProdutos);
+        metricas.registrarJmx(diretorio.toAbsolutePath().normalize().toString());
     }
 
     // Validações
     public void validarProduto(Produto produto) throws IllegalArgumentException {
-        if (produto.getCodigo() == null || !produto.getCodigo().matches("[A-Za-z0-9]{8}")) {
-            throw new IllegalArgumentException("Código deve ter 8 caracteres alfanuméricos.");
+        String erro = verificarProduto(produto, LocalDate.now());
+        if (erro != null) {
+            throw new IllegalArgumentException(erro);
+        }
+    }
+
+    // Devolve a mensagem da primeira regra violada, ou null se o produto for válido.
+    // Não aloca nem lança exceções, para ser barata na importação em lote.
+    String verificarProduto(Produto produto, LocalDate hoje) {
+        if (!codigoValido(produto.getCodigo())) {
+            return "Código deve ter 8 caracteres alfanuméricos.";
         }
-        if (produto.getNome() == null || produto.getNome().trim().isEmpty() || produto.getNome().length() < 3) {
-            throw new IllegalArgumentException("Nome deve ter pelo menos 3 caracteres.");
+        if (produto.getNome() == null || produto.getNome().isBlank() || produto.getNome().length() < 3) {
+            return "Nome deve ter pelo menos 3 caracteres.";
         }
-        if (produto.getDataFabricacao().isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Data de fabricação não pode ser futura.");
+        if (produto.getDataFabricacao().isAfter(hoje)) {
+            return "Data de fabricação não pode ser futura.";
         }
         if (produto.getDataValidade().isBefore(produto.getDataFabricacao())) {
-            throw new IllegalArgumentException("Data de validade não pode ser anterior à fabricação.");
+            return "Data de validade não pode ser anterior à fabricação.";
         }
-        if (produto.getPrecoCompra().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Preço de compra deve ser positivo.");
+        if (produto.getPrecoCompra().signum() <= 0) {
+            return "Preço de compra deve ser positivo.";
         }
         if (produto.getPrecoVenda().compareTo(produto.getPrecoCompra()) <= 0) {
-            throw new IllegalArgumentException("Preço de venda deve ser maior que o preço de compra.");
+            return "Preço de venda deve ser maior que o preço de compra.";
         }
         if (produto.getQuantidadeEstoque() < 0) {
-            throw new IllegalArgumentException("Quantidade em estoque não pode ser negativa.");
+            return "Quantidade em estoque não pode ser negativa.";
+        }
+        return null;
+    }
+
+    // Equivalente a codigo.matches("[A-Za-z0-9]{8}") sem compilar a regex a cada chamada
+    private static boolean codigoValido(String codigo) {
+        if (codigo == null || codigo.length() != TAMANHO_CODIGO) {
+            return false;
+        }
+        for (int i = 0; i < TAMANHO_CODIGO; i++) {
+            char c = codigo.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // As alterações valem em memória assim que o método retorna; o futuro completa
+    // quando o registro estiver gravado em disco pela thread de I/O do journal.
+    // O registro no journal é enfileirado ainda sob o bloqueio de escrita, para que a
+    // ordem no log seja a mesma ordem em que as alterações foram aplicadas em memória.
+    public CompletableFuture<Void> cadastrarProduto(Produto produto) {
+        return medindo(MetricasProdutos.Operacao.CADASTRO, () -> {
+            validarProduto(produto);
+            return escrevendo(() -> {
+                if (produtos.contem(produto.getCodigo())) {
+                    throw new IllegalArgumentException("Já existe um produto com este código.");
+                }
+                return gravarProduto(produto, EventoCatalogo.Tipo.CRIADO);
+            });
+        });
+    }
+
+    public CompletableFuture<Void> atualizarProduto(Produto produto) {
+        return medindo(MetricasProdutos.Operacao.ATUALIZACAO, () -> {
+            validarProduto(produto);
+            return escrevendo(() -> {
+                if (!produtos.contem(produto.getCodigo())) {
+                    throw new IllegalArgumentException("Produto não encontrado.");
+                }
+                return gravarProduto(produto, EventoCatalogo.Tipo.ATUALIZADO);
+            });
+        });
+    }
+
+    private CompletableFuture<Void> gravarProduto(Produto produto, EventoCatalogo.Tipo tipo) {
+        Produto anterior = tipo == EventoCatalogo.Tipo.ATUALIZADO && eventos.temAssinantes()
+                ? produtos.buscar(produto.getCodigo()) : null;
+        salvarProduto(produto);
+        CompletableFuture<Void> gravacao = journal.registrarInclusao(produto);
+        // Um produto novo entra no fim da listagem; um atualizado mantém a posição (O(log n))
+        int posicao = tipo == EventoCatalogo.Tipo.CRIADO ? produtos.tamanho() - 1
+                : eventos.temAssinantes() ? produtos.posicao(produto.getCodigo()) : -1;
+        eventos.publicar(tipo, produto, anterior, posicao);
+        compactarSeNecessario();
+        return gravacao;
+    }
+
+    public CompletableFuture<Void> excluirProduto(String codigo) {
+        return medindo(MetricasProdutos.Operacao.EXCLUSAO, () -> escrevendo(() -> {
+            Produto removido = produtos.buscar(codigo);
+            if (removido == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            int posicao = eventos.temAssinantes() ? produtos.posicao(codigo) : -1;
+            removerProduto(codigo);
+            CompletableFuture<Void> gravacao = journal.registrarExclusao(codigo);
+            eventos.publicar(EventoCatalogo.Tipo.EXCLUIDO, removido, posicao);
+            compactarSeNecessario();
+            return gravacao;
+        }));
+    }
+
+    // Movimentação de estoque de um produto: roda sob o bloqueio de leitura, em paralelo
+    // com outras movimentações, e a quantidade é trocada por CAS no armazenamento.
+    // Só inclusões, exclusões e lotes (bloqueio de escrita) esperam por ela.
+    public CompletableFuture<Void> movimentarEstoque(String codigo, int quantidade) {
+        return medindo(MetricasProdutos.Operacao.MOVIMENTACAO, () -> {
+            CompletableFuture<Void> gravacao = lendo(() -> {
+                long estoque = produtos.movimentarEstoque(codigo, quantidade);
+                eventos.publicarEstoque(codigo, estoque);
+                return journal.registrarMovimento(codigo, estoque);
+            });
+            if (journal.getRegistros() >= LIMITE_COMPACTACAO) {
+                escrevendo(() -> {
+                    compactarSeNecessario();
+                    return null;
+                });
+            }
+            return gravacao;
+        });
+    }
+
+    // Lote de movimentações aplicado por inteiro ou não aplicado: todas são conferidas
+    // antes que qualquer uma altere o estoque. Movimentos do mesmo código são somados e
+    // cada produto afetado gera um único registro no journal, gravado com um só fsync.
+    public CompletableFuture<Void> movimentarEstoque(Collection<MovimentoEstoque> movimentos) {
+        return medindo(MetricasProdutos.Operacao.MOVIMENTACAO, () -> escrevendo(() -> {
+            Map<String, Integer> totais = new LinkedHashMap<>();
+            for (MovimentoEstoque m : movimentos) {
+                if (!produtos.contem(m.getCodigo())) {
+                    throw new IllegalArgumentException("Produto não encontrado: " + m.getCodigo() + ".");
+                }
+                try {
+                    totais.merge(m.getCodigo(), m.getQuantidade(), Math::addExact);
+                } catch (ArithmeticException e) {
+                    throw new IllegalArgumentException("Movimentação excede o limite para o produto " + m.getCodigo() + ".");
+                }
+            }
+            // Confere todos os produtos antes de alterar qualquer um
+            totais.forEach((codigo, total) -> EstoqueVersionado.somar(
+                    EstoqueVersionado.compor(0, produtos.quantidadeEstoque(codigo)), total, codigo));
+            Map<String, Long> resultados = new LinkedHashMap<>();
+            totais.forEach((codigo, total) -> resultados.put(codigo, produtos.movimentarEstoque(codigo, total)));
+            CompletableFuture<Void> gravacao = journal.registrarMovimentos(resultados);
+            resultados.forEach(eventos::publicarEstoque);
+            compactarSeNecessario();
+            return gravacao;
+        }));
+    }
+
+    // Inclusões e exclusões passam por aqui para que o índice de texto acompanhe o armazenamento
+    private void salvarProduto(Produto produto) {
+        Produto anterior = produtos.buscar(produto.getCodigo());
+        if (anterior != null) {
+            indiceTexto.remover(anterior.getCodigo());
         }
+        produtos.salvar(produto);
+        indiceTexto.adicionar(produto.getCodigo(), produto.getNome(), produto.getDescricao());
     }
 
-    public void cadastrarProduto(Produto produto) {
-        validarProduto(produto);
-        produtos.add(produto);
-        salvarProdutos();
+    private boolean removerProduto(String codigo) {
+        Produto removido = produtos.buscar(codigo);
+        if (removido == null) {
+            return false;
+        }
+        indiceTexto.remover(codigo);
+        return produtos.remover(codigo);
     }
 
-    public void excluirProduto(String codigo) {
-        produtos.removeIf(p -> p.getCodigo().equals(codigo));
-        salvarProdutos();
+    // Concorrência: um único ReadWriteLock protege o mapa e todos os índices derivados,
+    // que precisam mudar juntos. Leituras rodam em paralelo e devolvem cópias, então o
+    // chamador sempre vê um estado consistente mesmo com escritas concorrentes.
+    private <T> T lendo(Supplier<T> leitura) {
+        lock.readLock().lock();
+        try {
+            return leitura.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T escrevendo(Supplier<T> escrita) {
+        lock.writeLock().lock();
+        try {
+            return escrita.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Latência, erros e evento JFR da operação (ver MetricasProdutos)
+    private <T> T medindo(MetricasProdutos.Operacao operacao, Supplier<T> acao) {
+        try (MetricasProdutos.Medicao medicao = metricas.iniciar(operacao)) {
+            T resultado = acao.get();
+            medicao.sucesso();
+            return resultado;
+        }
     }
 
     public Produto consultarProduto(String codigo) {
-        return produtos.stream()
-                .filter(p -> p.getCodigo().equals(codigo))
-                .findFirst()
-                .orElse(null);
+        return medindo(MetricasProdutos.Operacao.CONSULTA, () -> lendo(() -> produtos.buscar(codigo)));
     }
 
     public List<Produto> listarTodos() {
-        return new ArrayList<>(produtos);
+        return medindo(MetricasProdutos.Operacao.LISTAGEM, () -> lendo(produtos::todos));
+    }
+
+    // Acesso paginado para a tabela: só a janela pedida é copiada
+    public int quantidadeProdutos() {
+        return lendo(produtos::tamanho);
+    }
+
+    public List<Produto> listarPagina(int inicio, int quantidade) {
+        return medindo(MetricasProdutos.Operacao.LISTAGEM, () -> lendo(() -> produtos.pagina(inicio, quantidade)));
+    }
+
+    // Posição do produto na listagem, ou -1 se não existir
+    public int posicaoDe(String codigo) {
+        return lendo(() -> produtos.posicao(codigo));
     }
 
-    // Relatórios com Stream API
+    // Alterações do catálogo (cadastro, atualização, exclusão, movimentação e importação)
+    // na ordem em que foram aplicadas; a carga inicial e a reaplicação do log não geram
+    // eventos. Ver PublicadorEventos para o que acontece com assinantes lentos.
+    public Flow.Publisher<EventoCatalogo> getEventos() {
+        return eventos::assinar;
+    }
+
+    // Sequência do último evento publicado. Como as alterações que mudam o tamanho publicam
+    // sob o bloqueio de escrita, ler a sequência antes e depois de quantidadeProdutos() e
+    // obter o mesmo valor garante que o tamanho lido já inclui exatamente esses eventos.
+    public long getSequenciaEventos() {
+        return eventos.getSequencia();
+    }
+
+    // Busca por palavras do nome e da descrição, sem diferenciar acentos nem maiúsculas.
+    // Cada palavra da consulta também vale como prefixo, para a busca enquanto se digita.
+    public List<Produto> pesquisarProdutos(String consulta, int limite) {
+        return medindo(MetricasProdutos.Operacao.PESQUISA, () -> lendo(() -> {
+            List<Produto> encontrados = new ArrayList<>();
+            for (String codigo : indiceTexto.buscar(consulta, limite)) {
+                encontrados.add(produtos.buscar(codigo));
+            }
+            return encontrados;
+        }));
+    }
+
+    // Consulta por critérios combinados (ver Criterio). O armazenamento escolhe como
+    // avaliar o critério; a ordenação e o limite são aplicados sobre o resultado.
+    public List<Produto> consultar(ConsultaProdutos consulta) {
+        return medindo(MetricasProdutos.Operacao.FILTRO, () -> executar(consulta));
+    }
+
+    // Sem medição: os relatórios montados a partir de consultas contam só como RELATORIO
+    private List<Produto> executar(ConsultaProdutos consulta) {
+        List<Produto> resultado = lendo(() -> produtos.filtrar(consulta.getCriterio()));
+        if (consulta.getOrdem() != null) {
+            resultado.sort(consulta.getOrdem());
+        }
+        if (resultado.size() > consulta.getLimite()) {
+            return new ArrayList<>(resultado.subList(0, consulta.getLimite()));
+        }
+        return resultado;
+    }
+
+    // Consultas por validade, em ordem de vencimento
     public List<Produto> produtosProximosVencimento() {
-        LocalDate limite = LocalDate.now().plusDays(60);
-        return produtos.stream()
-                .filter(p -> p.getDataValidade().isBefore(limite))
-                .collect(Collectors.toList());
+        return medindo(MetricasProdutos.Operacao.RELATORIO, () -> executar(
+                porVencimento(null, LocalDate.now().plusDays(DIAS_PROXIMO_VENCIMENTO))));
+    }
+
+    // Produtos que vencem nos próximos dias (inclui os já vencidos)
+    public List<Produto> produtosVencendoEm(int dias) {
+        if (dias < 0) {
+            throw new IllegalArgumentException("O horizonte em dias não pode ser negativo.");
+        }
+        return produtosComValidadeEntre(null, LocalDate.now().plusDays(dias));
     }
 
+    // Produtos com validade em [inicio, fim)
+    public List<Produto> produtosComValidadeEntre(LocalDate inicio, LocalDate fim) {
+        return consultar(porVencimento(inicio, fim));
+    }
+
+    private static ConsultaProdutos porVencimento(LocalDate inicio, LocalDate fim) {
+        return new ConsultaProdutos(Criterio.validadeEntre(inicio, fim))
+                .ordenarPor(ConsultaProdutos.Ordenacao.VALIDADE);
+    }
+
+    // Relatórios: os de listas são consultas prontas; a margem média é agregada pelo armazenamento
     public List<Produto> produtosEstoqueBaixo() {
-        return produtos.stream()
-                .filter(p -> p.getQuantidadeEstoque() < 10)
-                .collect(Collectors.toList());
-    }
-
-    public Map<String, Double> margemLucroMediaPorCategoria() {
-        return produtos.stream()
-                .collect(Collectors.groupingBy(
-                        p -> p.getCategoria().getNome(),
-                        Collectors.averagingDouble(p ->
-                                p.getPrecoVenda().subtract(p.getPrecoCompra())
-                                        .divide(p.getPrecoCompra(), 2, BigDecimal.ROUND_HALF_UP)
-                                        .doubleValue() * 100
-                        )
-                ));
+        return medindo(MetricasProdutos.Operacao.RELATORIO, () -> executar(new ConsultaProdutos(
+                Criterio.estoqueEntre(Integer.MIN_VALUE, RelatoriosIncrementais.LIMITE_ESTOQUE_BAIXO - 1))
+                .ordenarPor(ConsultaProdutos.Ordenacao.CODIGO)));
+    }
+
+    // Médias em pontos percentuais com Produto.ESCALA_MARGEM casas, a partir das somas
+    // exatas das margens guardadas em cache. Antes devolvia Map<String, Double>; quem
+    // precisar de double usa doubleValue() (String.format("%.2f") aceita os dois)
+    public Map<String, BigDecimal> margemLucroMediaPorCategoria() {
+        return medindo(MetricasProdutos.Operacao.RELATORIO, () -> mediasPorCategoria(lendo(produtos::somaMargemPorCategoria)));
+    }
+
+    // Somas e quantidades por categoria, para combinar catálogos (ver CatalogoFragmentado)
+    Map<String, SomaMargem> somaMargemPorCategoria() {
+        return lendo(produtos::somaMargemPorCategoria);
     }
 
+    static Map<String, BigDecimal> mediasPorCategoria(Map<String, SomaMargem> somas) {
+        Map<String, BigDecimal> medias = new HashMap<>();
+        somas.forEach((categoria, soma) -> medias.put(categoria, soma.media()));
+        return medias;
+    }
+
+    // Relatório de precificação: por categoria (em ordem alfabética), a margem média e os
+    // "limite" produtos de maior e de menor margem, escolhidos com heaps de tamanho limite
+    public Map<String, MargensCategoria> relatorioPrecificacao(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("A quantidade de produtos por categoria deve ser positiva.");
+        }
+        return medindo(MetricasProdutos.Operacao.RELATORIO, () -> lendo(() ->
+                relatorioPrecificacao(produtos.somaMargemPorCategoria(), produtos.extremosMargemPorCategoria(limite))));
+    }
+
+    Map<String, ExtremosMargem> extremosMargemPorCategoria(int limite) {
+        return lendo(() -> produtos.extremosMargemPorCategoria(limite));
+    }
+
+    static Map<String, MargensCategoria> relatorioPrecificacao(Map<String, SomaMargem> somas,
+                                                               Map<String, ExtremosMargem> extremos) {
+        // Nos fragmentos as duas leituras não são atômicas: uma categoria que apareceu entre
+        // elas fica para o próximo relatório
+        Map<String, MargensCategoria> relatorio = new TreeMap<>();
+        somas.forEach((categoria, soma) -> {
+            if (extremos.containsKey(categoria)) {
+                relatorio.put(categoria, new MargensCategoria(categoria, soma, extremos.get(categoria)));
+            }
+        });
+        return relatorio;
+    }
+
+    // Setores na ordem das categorias; setores sem produtos ficam de fora
     public Map<String, List<Produto>> produtosPorSetor() {
-        return produtos.stream()
-                .collect(Collectors.groupingBy(p -> p.getCategoria().getSetor()));
+        // Um único bloqueio de leitura: os setores saem do mesmo estado do catálogo
+        return medindo(MetricasProdutos.Operacao.RELATORIO, () -> lendo(() -> {
+            Map<String, List<Produto>> resultado = new LinkedHashMap<>();
+            for (Categoria categoria : categorias) {
+                String setor = categoria.getSetor();
+                if (!resultado.containsKey(setor)) {
+                    resultado.put(setor, produtos.filtrar(Criterio.setor(setor)));
+                }
+            }
+            resultado.values().removeIf(List::isEmpty);
+            return resultado;
+        }));
+    }
+
+    public MetricasProdutos getMetricas() {
+        return metricas;
+    }
+
+    // Anexa o resumo das métricas a metricas.log, no diretório dos dados, a cada intervalo
+    public void registrarMetricasPeriodicamente(Duration intervalo) {
+        metricas.iniciarRegistro(METRICAS_FILE, intervalo);
     }
 
     // Manipulação de CSV
     private void carregarCategorias() {
-        try (BufferedReader br = new BufferedReader(new FileReader(CSV_CATEGORIA_FILE))) {
+        try (BufferedReader br = Files.newBufferedReader(CSV_CATEGORIA_FILE, StandardCharsets.UTF_8)) {
             String line;
             while ((line = br.readLine()) != null) {
                 String[] dados = line.split(";");
@@ -124,51 +499,188 @@ public class ProdutoService {
     }
 
     private void salvarCategorias() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(CSV_CATEGORIA_FILE))) {
+        try (BufferedWriter bw = Files.newBufferedWriter(CSV_CATEGORIA_FILE, StandardCharsets.UTF_8)) {
             for (Categoria c : categorias) {
                 bw.write(c.getId() + ";" + c.getNome() + ";" + c.getDescricao() + ";" + c.getSetor());
                 bw.newLine();
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            metricas.falhaPersistencia(e);
         }
     }
 
-    private void carregarProdutos() {
-        try (BufferedReader br = new BufferedReader(new FileReader(CSV_FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] dados = line.split(";");
-                Categoria categoria = categorias.stream()
-                        .filter(c -> c.getId() == Integer.parseInt(dados[8]))
-                        .findFirst()
-                        .orElse(categorias.get(0));
-                produtos.add(new Produto(
-                        dados[0],
-                        dados[1],
-                        dados[2],
-                        LocalDate.parse(dados[3]),
-                        LocalDate.parse(dados[4]),
-                        new BigDecimal(dados[5]),
-                        new BigDecimal(dados[6]),
-                        Integer.parseInt(dados[7]),
-                        categoria
-                ));
+    // O snapshot binário é a fonte principal; produtos.csv só é lido quando ainda
+    // não existe snapshot (catálogos gravados por versões anteriores).
+    // Uma falha na leitura impede a abertura: seguir com parte do catálogo faria a
+    // próxima compactação gravar o catálogo incompleto por cima do snapshot.
+    private void carregarProdutos(DoubleConsumer progresso) {
+        try (MetricasProdutos.Medicao medicao = metricas.iniciar(MetricasProdutos.Operacao.CARGA)) {
+            if (Files.exists(SNAPSHOT_FILE)) {
+                medicao.lidos(Files.size(SNAPSHOT_FILE));
+                ultimaCarga = new SnapshotBinario(categorias).carregar(SNAPSHOT_FILE, this::salvarProduto, progresso);
+            } else if (Files.exists(CSV_FILE)) {
+                medicao.lidos(Files.size(CSV_FILE));
+                ultimaCarga = lerCsv(CSV_FILE, this::salvarProduto, progresso);
+                ultimaCarga.getErros().forEach(erro -> LOG.log(System.Logger.Level.WARNING, "{0} {1}", CSV_FILE, erro));
             }
+            medicao.sucesso();
         } catch (IOException e) {
-            e.printStackTrace();
+            throw new UncheckedIOException("falha na leitura dos produtos salvos (" + e + ")", e);
         }
     }
 
-    private void salvarProdutos() {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(CSV_FILE))) {
-            for (Produto p : produtos) {
-                bw.write(p.toString());
-                bw.newLine();
+    private ResultadoCarga lerCsv(Path arquivo, Consumer<Produto> destino, DoubleConsumer progresso) throws IOException {
+        if (Files.size(arquivo) > LIMITE_CARGA_PARALELA) {
+            return new LeitorCsvParalelo(categorias).carregar(arquivo, destino, progresso);
+        }
+        return new LeitorCsvProdutos(categorias).carregar(arquivo, destino, progresso);
+    }
+
+    // Importação e exportação em CSV
+    public ResultadoCarga importarCsv(Path arquivo) throws IOException {
+        return importarCsv(arquivo, progresso -> { });
+    }
+
+    // Importação em lote: o arquivo é lido em streaming e cada linha é validada; linhas
+    // inválidas entram no resultado com o número da linha e não interrompem a carga.
+    // As linhas aceitas (a última ocorrência de cada código vale) são aplicadas de uma
+    // vez e gravadas no journal com uma única escrita e um único fsync.
+    public ResultadoCarga importarCsv(Path arquivo, DoubleConsumer progresso) throws IOException {
+        try (MetricasProdutos.Medicao medicao = metricas.iniciar(MetricasProdutos.Operacao.IMPORTACAO)) {
+            medicao.lidos(Files.size(arquivo));
+            ResultadoCarga resultado = importar(arquivo, progresso);
+            medicao.sucesso();
+            return resultado;
+        }
+    }
+
+    private ResultadoCarga importar(Path arquivo, DoubleConsumer progresso) throws IOException {
+        LocalDate hoje = LocalDate.now();
+        Map<String, Produto> aceitos = new LinkedHashMap<>();
+        ResultadoCarga resultado = new LeitorCsvProdutos(categorias).carregar(arquivo,
+                p -> aceitos.put(p.getCodigo(), p),
+                p -> verificarProduto(p, hoje),
+                progresso);
+        CompletableFuture<Void> gravacao = escrevendo(() -> {
+            for (Produto p : aceitos.values()) {
+                boolean novo = !produtos.contem(p.getCodigo());
+                Produto anterior = novo || !eventos.temAssinantes() ? null : produtos.buscar(p.getCodigo());
+                salvarProduto(p);
+                // Sem posição nas atualizações: a tabela recarrega uma vez em vez de um delta por linha
+                eventos.publicar(novo ? EventoCatalogo.Tipo.CRIADO : EventoCatalogo.Tipo.ATUALIZADO, p, anterior,
+                        novo ? produtos.tamanho() - 1 : -1);
             }
+            CompletableFuture<Void> registro = journal.registrarInclusoes(aceitos.values());
+            compactarSeNecessario();
+            return registro;
+        });
+        try {
+            gravacao.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importação interrompida antes da gravação.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Falha ao gravar a importação.", e.getCause());
+        }
+        return resultado;
+    }
+
+    public void exportarCsv(Path arquivo) throws IOException {
+        try (MetricasProdutos.Medicao medicao = metricas.iniciar(MetricasProdutos.Operacao.EXPORTACAO)) {
+            try (BufferedWriter bw = Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8)) {
+                for (Produto p : listarTodos()) {
+                    bw.write(p.toString());
+                    bw.newLine();
+                }
+            }
+            medicao.gravados(Files.size(arquivo));
+            medicao.sucesso();
+        }
+    }
+
+    private void reproduzirInclusao(String linha) {
+        try {
+            salvarProduto(leitor.parseLinhaEscapada(linha));
+            metricas.registroReaplicado();
+        } catch (IllegalArgumentException e) {
+            metricas.registroIgnorado(LOG_FILE, e.getMessage());
+        }
+    }
+
+    private void reproduzirExclusao(String codigo) {
+        removerProduto(codigo);
+        metricas.registroReaplicado();
+    }
+
+    // Registro "codigo;versao;quantidade"; versões já aplicadas são ignoradas
+    private void reproduzirMovimento(String registro) {
+        String[] campos = registro.split(";");
+        if (campos.length != 3 || !produtos.contem(campos[0])) {
+            metricas.registroIgnorado(LOG_FILE, "movimentação " + registro);
+            return;
+        }
+        try {
+            produtos.aplicarEstoque(campos[0],
+                    EstoqueVersionado.compor(Integer.parseUnsignedInt(campos[1]), Integer.parseInt(campos[2])));
+            metricas.registroReaplicado();
+        } catch (NumberFormatException e) {
+            metricas.registroIgnorado(LOG_FILE, "movimentação " + registro);
+        }
+    }
+
+    public ResultadoCarga getUltimaCarga() {
+        return ultimaCarga;
+    }
+
+    // Compactação: o log atual é rotacionado e, em segundo plano, uma cópia da lista
+    // é gravada em um arquivo temporário que substitui o snapshot via rename atômico.
+    // Chamada sob o bloqueio de escrita, para que cópia e rotação correspondam ao mesmo estado.
+    private void compactarSeNecessario() {
+        if (journal.getRegistros() < LIMITE_COMPACTACAO || !compactando.compareAndSet(false, true)) {
+            return;
+        }
+        Collection<Produto> copia = produtos.copia();
+        try {
+            journal.rotacionar();
+        } catch (IOException e) {
+            compactando.set(false);
+            metricas.falhaPersistencia(e);
+            return;
+        }
+        compactador.execute(() -> {
+            try {
+                salvarProdutos(copia);
+                journal.descartarRotacionado();
+            } catch (IOException e) {
+                metricas.falhaPersistencia(e);
+            } finally {
+                compactando.set(false);
+            }
+        });
+    }
+
+    private void salvarProdutos(Collection<Produto> snapshot) throws IOException {
+        try (MetricasProdutos.Medicao medicao = metricas.iniciar(MetricasProdutos.Operacao.SNAPSHOT)) {
+            Path temporario = SNAPSHOT_FILE.resolveSibling(SNAPSHOT_FILE.getFileName() + ".tmp");
+            SnapshotBinario.gravar(temporario, snapshot);
+            medicao.gravados(Files.size(temporario));
+            Files.move(temporario, SNAPSHOT_FILE, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            medicao.sucesso();
+        }
+    }
+
+    public void fechar() {
+        eventos.close();
+        compactador.shutdown();
+        try {
+            compactador.awaitTermination(30, TimeUnit.SECONDS);
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (IOException e) {
-            e.printStackTrace();
+            metricas.falhaPersistencia(e);
         }
+        metricas.encerrar();
     }
 
     public List<Categoria> getCategorias() {
@@ -0,0 +1,112 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+// Fluxo de EventoCatalogo com contrapressão: cada assinante tem um buffer limitado e
+// recebe na velocidade em que pede (request). Quem publica é o ProdutoService, sob o
+// bloqueio do catálogo, então publicar nunca espera: com o buffer de um assinante cheio
+// o evento é descartado para ele, e o salto na sequência avisa que deve reler o catálogo.
+//
+// Assinantes que não podem perder eventos (SemPerdas, como ArquivoEventos) ficam fora do
+// SubmissionPublisher: recebem cada evento na própria chamada de publicar, em ordem, e
+// só o enfileiram para a sua thread. A demanda deles é ilimitada e request é ignorado.
+class PublicadorEventos implements AutoCloseable {
+    private final ExecutorService entrega = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "eventos-produtos");
+        t.setDaemon(true);
+        return t;
+    });
+    private final SubmissionPublisher<EventoCatalogo> publicador =
+            new SubmissionPublisher<>(entrega, Flow.defaultBufferSize());
+    private final List<SemPerdas> semPerdas = new CopyOnWriteArrayList<>();
+    private long sequencia;
+
+    // onNext é chamado sob o bloqueio do catálogo: deve só enfileirar, sem I/O
+    interface SemPerdas extends Flow.Subscriber<EventoCatalogo> {
+    }
+
+    void assinar(Flow.Subscriber<? super EventoCatalogo> assinante) {
+        if (assinante instanceof SemPerdas direto) {
+            assinarSemPerdas(direto);
+        } else {
+            publicador.subscribe(assinante);
+        }
+    }
+
+    // Sob o monitor, para que nenhum evento chegue antes de onSubscribe
+    private synchronized void assinarSemPerdas(SemPerdas assinante) {
+        if (publicador.isClosed()) {
+            assinante.onComplete();
+            return;
+        }
+        semPerdas.add(assinante);
+        assinante.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                semPerdas.remove(assinante);
+            }
+        });
+    }
+
+    // Sem assinantes a sequência avança do mesmo jeito, mas nada é alocado
+    boolean temAssinantes() {
+        return publicador.hasSubscribers() || !semPerdas.isEmpty();
+    }
+
+    synchronized long getSequencia() {
+        return sequencia;
+    }
+
+    synchronized void publicar(EventoCatalogo.Tipo tipo, Produto produto, int posicao) {
+        publicar(tipo, produto, null, posicao);
+    }
+
+    // anterior: o produto substituído, nas atualizações
+    synchronized void publicar(EventoCatalogo.Tipo tipo, Produto produto, Produto anterior, int posicao) {
+        sequencia++;
+        if (temAssinantes()) {
+            entregar(new EventoCatalogo(sequencia, tipo, produto.getCodigo(), produto, anterior, posicao, 0, 0));
+        }
+    }
+
+    synchronized void publicarEstoque(String codigo, long estoque) {
+        sequencia++;
+        if (temAssinantes()) {
+            entregar(new EventoCatalogo(sequencia, EventoCatalogo.Tipo.ESTOQUE_ALTERADO, codigo, null, null, -1,
+                    EstoqueVersionado.versao(estoque), EstoqueVersionado.quantidade(estoque)));
+        }
+    }
+
+    private void entregar(EventoCatalogo evento) {
+        if (publicador.hasSubscribers()) {
+            publicador.offer(evento, null);
+        }
+        for (SemPerdas assinante : semPerdas) {
+            assinante.onNext(evento);
+        }
+    }
+
+    // Os assinantes recebem onComplete depois dos eventos já enfileirados. O executor não
+    // é desligado, para que assinantes lentos ainda possam pedir o que ficou no buffer;
+    // as threads são daemon e terminam sozinhas quando ficam ociosas. Os SemPerdas
+    // recebem onComplete aqui mesmo e podem esperar a gravação do que enfileiraram.
+    @Override
+    public synchronized void close() {
+        publicador.close();
+        for (SemPerdas assinante : semPerdas) {
+            assinante.onComplete();
+        }
+        semPerdas.clear();
+    }
+}
@@ -0,0 +1,100 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Agregados dos relatórios mantidos a cada inclusão/remoção, para que a leitura
+// custe apenas o tamanho do resultado em vez de uma varredura do catálogo.
+class RelatoriosIncrementais {
+    static final int LIMITE_ESTOQUE_BAIXO = 10;
+
+    // Por nome de categoria: soma exata das margens e quantidade de produtos
+    private final Map<String, SomaMargem> margemPorCategoria = new HashMap<>();
+    private final Map<String, Set<Produto>> produtosPorSetor = new LinkedHashMap<>();
+    private final Map<String, Set<Produto>> produtosPorCategoria = new HashMap<>();
+    // Por código. Concorrente porque as movimentações de estoque alteram o conjunto sob o
+    // bloqueio de leitura do serviço, ao mesmo tempo que os relatórios o percorrem.
+    private final Map<String, Produto> estoqueBaixo = new ConcurrentSkipListMap<>();
+
+    void adicionar(Produto p) {
+        margemPorCategoria.computeIfAbsent(p.getCategoria().getNome(), k -> new SomaMargem()).adicionar(p.getMargem());
+        produtosPorSetor.computeIfAbsent(p.getCategoria().getSetor(), k -> new LinkedHashSet<>()).add(p);
+        produtosPorCategoria.computeIfAbsent(p.getCategoria().getNome(), k -> new LinkedHashSet<>()).add(p);
+        if (p.getQuantidadeEstoque() < LIMITE_ESTOQUE_BAIXO) {
+            estoqueBaixo.put(p.getCodigo(), p);
+        }
+    }
+
+    void remover(Produto p) {
+        SomaMargem margem = margemPorCategoria.get(p.getCategoria().getNome());
+        if (margem != null) {
+            margem.remover(p.getMargem());
+            if (margem.getQuantidade() == 0) {
+                margemPorCategoria.remove(p.getCategoria().getNome());
+            }
+        }
+        Set<Produto> setor = produtosPorSetor.get(p.getCategoria().getSetor());
+        if (setor != null && setor.remove(p) && setor.isEmpty()) {
+            produtosPorSetor.remove(p.getCategoria().getSetor());
+        }
+        Set<Produto> categoria = produtosPorCategoria.get(p.getCategoria().getNome());
+        if (categoria != null && categoria.remove(p) && categoria.isEmpty()) {
+            produtosPorCategoria.remove(p.getCategoria().getNome());
+        }
+        estoqueBaixo.remove(p.getCodigo(), p);
+    }
+
+    // Movimentação de estoque: só mexe no conjunto quando a quantidade cruza o limite.
+    // A decisão relê a quantidade sob o monitor do produto, então a última movimentação
+    // a passar por aqui deixa o conjunto de acordo com o estoque final.
+    void estoqueAlterado(Produto p, int anterior, int atual) {
+        if ((anterior < LIMITE_ESTOQUE_BAIXO) == (atual < LIMITE_ESTOQUE_BAIXO)) {
+            return;
+        }
+        synchronized (p) {
+            if (p.getQuantidadeEstoque() < LIMITE_ESTOQUE_BAIXO) {
+                estoqueBaixo.put(p.getCodigo(), p);
+            } else {
+                estoqueBaixo.remove(p.getCodigo(), p);
+            }
+        }
+    }
+
+    // Visões sem cópia, usadas como candidatos pelo filtro do CatalogoObjetos
+    Collection<Produto> estoqueBaixo() {
+        return estoqueBaixo.values();
+    }
+
+    Set<Produto> doSetor(String setor) {
+        return produtosPorSetor.getOrDefault(setor, Set.of());
+    }
+
+    Set<Produto> daCategoria(String nome) {
+        return produtosPorCategoria.getOrDefault(nome, Set.of());
+    }
+
+    Map<String, SomaMargem> somaMargemPorCategoria() {
+        Map<String, SomaMargem> somas = new HashMap<>();
+        margemPorCategoria.forEach((categoria, margem) -> somas.put(categoria, margem.copia()));
+        return somas;
+    }
+
+    // Um heap por categoria sobre o conjunto já mantido dela; as margens estão em cache nos produtos
+    Map<String, ExtremosMargem> extremosMargemPorCategoria(int limite) {
+        Map<String, ExtremosMargem> extremos = new HashMap<>();
+        produtosPorCategoria.forEach((categoria, produtos) -> {
+            ExtremosMargem daCategoria = new ExtremosMargem(limite);
+            produtos.forEach(daCategoria::oferecer);
+            extremos.put(categoria, daCategoria);
+        });
+        return extremos;
+    }
+}
@@ -0,0 +1,59 @@
+package org.suaempresa.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Resumo de uma carga de produtos: linhas aceitas, tempo gasto e linhas rejeitadas
+public class ResultadoCarga {
+    private long linhas;
+    private long nanos;
+    private final List<ErroLinha> erros = new ArrayList<>();
+
+    void registrarLinha() {
+        linhas++;
+    }
+
+    void registrarLinhas(long quantidade) {
+        linhas += quantidade;
+    }
+
+    void registrarErro(long numeroLinha, String mensagem) {
+        erros.add(new ErroLinha(numeroLinha, mensagem));
+    }
+
+    void finalizar(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public long getLinhas() { return linhas; }
+    public long getNanos() { return nanos; }
+    public List<ErroLinha> getErros() { return erros; }
+
+    public double getLinhasPorSegundo() {
+        return nanos == 0 ? 0 : linhas * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d linhas em %d ms (%.0f linhas/s), %d rejeitadas",
+                linhas, nanos / 1_000_000, getLinhasPorSegundo(), erros.size());
+    }
+
+    public static class ErroLinha {
+        private final long numeroLinha;
+        private final String mensagem;
+
+        public ErroLinha(long numeroLinha, String mensagem) {
+            this.numeroLinha = numeroLinha;
+            this.mensagem = mensagem;
+        }
+
+        public long getNumeroLinha() { return numeroLinha; }
+        public String getMensagem() { return mensagem; }
+
+        @Override
+        public String toString() {
+            return "linha " + numeroLinha + ": " + mensagem;
+        }
+    }
+}
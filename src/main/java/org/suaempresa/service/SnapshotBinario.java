@@ -0,0 +1,201 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+// Snapshot binário versionado do catálogo.
+//
+// Layout: cabeçalho com int MAGICO e short VERSAO; o restante usa inteiros de
+// tamanho variável (varint zigzag, 1 a 10 bytes conforme a magnitude).
+//   quantidade de strings, seguida de cada string como tamanho + bytes UTF-8
+//   quantidade de produtos, seguida de cada produto:
+//     codigo, nome, descricao (índices na tabela de strings, -1 = null)
+//     fabricação, validade (dias desde 1970-01-01)
+//     preço de compra e de venda (ver gravarDecimal)
+//     quantidade em estoque, id da categoria
+public class SnapshotBinario {
+    static final int MAGICO = 0x50524F44; // "PROD"
+    static final short VERSAO = 1;
+
+    private static final byte DECIMAL_LONG = 0;
+    private static final byte DECIMAL_BYTES = 1;
+
+    private final TabelaCategorias categorias;
+
+    public SnapshotBinario(List<Categoria> categorias) {
+        this.categorias = new TabelaCategorias(categorias);
+    }
+
+    public static void gravar(Path arquivo, Collection<Produto> produtos) throws IOException {
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Produto p : produtos) {
+            indexar(p.getCodigo(), indices, strings);
+            indexar(p.getNome(), indices, strings);
+            indexar(p.getDescricao(), indices, strings);
+        }
+
+        try (FileOutputStream fos = new FileOutputStream(arquivo.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 64 * 1024))) {
+            out.writeInt(MAGICO);
+            out.writeShort(VERSAO);
+
+            gravarVarint(out, strings.size());
+            for (String s : strings) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                gravarVarint(out, bytes.length);
+                out.write(bytes);
+            }
+
+            gravarVarint(out, produtos.size());
+            for (Produto p : produtos) {
+                gravarVarint(out, indice(p.getCodigo(), indices));
+                gravarVarint(out, indice(p.getNome(), indices));
+                gravarVarint(out, indice(p.getDescricao(), indices));
+                gravarVarint(out, p.getDataFabricacao().toEpochDay());
+                gravarVarint(out, p.getDataValidade().toEpochDay());
+                gravarDecimal(out, p.getPrecoCompra());
+                gravarDecimal(out, p.getPrecoVenda());
+                gravarVarint(out, p.getQuantidadeEstoque());
+                gravarVarint(out, p.getCategoria().getId());
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+    }
+
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino) throws IOException {
+        return carregar(arquivo, destino, progresso -> { });
+    }
+
+    public ResultadoCarga carregar(Path arquivo, Consumer<Produto> destino, DoubleConsumer progresso) throws IOException {
+        ResultadoCarga resultado = new ResultadoCarga();
+        long inicioCarga = System.nanoTime();
+        try (InputStream is = Files.newInputStream(arquivo);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is, 64 * 1024))) {
+            if (in.readInt() != MAGICO) {
+                throw new IOException(arquivo + " não é um snapshot de produtos.");
+            }
+            short versao = in.readShort();
+            if (versao != VERSAO) {
+                throw new IOException(arquivo + ": versão de snapshot não suportada (" + versao + ").");
+            }
+
+            String[] strings = new String[(int) lerVarint(in)];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < strings.length; i++) {
+                int tamanho = (int) lerVarint(in);
+                if (bytes.length < tamanho) {
+                    bytes = new byte[Math.max(tamanho, bytes.length * 2)];
+                }
+                in.readFully(bytes, 0, tamanho);
+                strings[i] = new String(bytes, 0, tamanho, StandardCharsets.UTF_8);
+            }
+
+            int quantidade = (int) lerVarint(in);
+            for (int i = 0; i < quantidade; i++) {
+                destino.accept(new Produto(
+                        string(strings, lerVarint(in)),
+                        string(strings, lerVarint(in)),
+                        string(strings, lerVarint(in)),
+                        LocalDate.ofEpochDay(lerVarint(in)),
+                        LocalDate.ofEpochDay(lerVarint(in)),
+                        lerDecimal(in),
+                        lerDecimal(in),
+                        (int) lerVarint(in),
+                        categorias.buscar((int) lerVarint(in))
+                ));
+                if (i % LeitorCsvProdutos.INTERVALO_PROGRESSO == 0) {
+                    progresso.accept((double) i / quantidade);
+                }
+            }
+            progresso.accept(1);
+            resultado.registrarLinhas(quantidade);
+        }
+        resultado.finalizar(System.nanoTime() - inicioCarga);
+        return resultado;
+    }
+
+    private static void indexar(String s, Map<String, Integer> indices, List<String> strings) {
+        if (s != null && !indices.containsKey(s)) {
+            indices.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    private static int indice(String s, Map<String, Integer> indices) {
+        return s == null ? -1 : indices.get(s);
+    }
+
+    private static String string(String[] strings, long indice) {
+        return indice < 0 ? null : strings[(int) indice];
+    }
+
+    // Escala seguida do valor sem escala: varint quando cabe em um long, bytes caso contrário
+    private static void gravarDecimal(DataOutputStream out, BigDecimal valor) throws IOException {
+        gravarVarint(out, valor.scale());
+        BigInteger semEscala = valor.unscaledValue();
+        if (semEscala.bitLength() < 64) {
+            out.writeByte(DECIMAL_LONG);
+            gravarVarint(out, semEscala.longValue());
+        } else {
+            byte[] bytes = semEscala.toByteArray();
+            out.writeByte(DECIMAL_BYTES);
+            gravarVarint(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static BigDecimal lerDecimal(DataInputStream in) throws IOException {
+        int escala = (int) lerVarint(in);
+        if (in.readByte() == DECIMAL_LONG) {
+            return BigDecimal.valueOf(lerVarint(in), escala);
+        }
+        byte[] bytes = new byte[(int) lerVarint(in)];
+        in.readFully(bytes);
+        return new BigDecimal(new BigInteger(bytes), escala);
+    }
+
+    // Zigzag leva valores negativos pequenos para positivos pequenos; depois 7 bits por byte
+    private static void gravarVarint(DataOutputStream out, long valor) throws IOException {
+        long v = (valor << 1) ^ (valor >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long lerVarint(DataInputStream in) throws IOException {
+        long v = 0;
+        for (int deslocamento = 0; deslocamento < 64; deslocamento += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                return (v >>> 1) ^ -(v & 1);
+            }
+        }
+        throw new IOException("varint inválido no snapshot.");
+    }
+}
@@ -0,0 +1,76 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+// Soma exata de margens (todas com Produto.ESCALA_MARGEM casas) e quantidade de
+// produtos de uma categoria. Os valores sem escala são somados em long; o que
+// estoura vai para um BigInteger, então a soma nunca é arredondada.
+final class SomaMargem {
+    private long soma;
+    private BigInteger excedente = BigInteger.ZERO;
+    private long quantidade;
+
+    void adicionar(BigDecimal margem) {
+        somar(margem.unscaledValue());
+        quantidade++;
+    }
+
+    void remover(BigDecimal margem) {
+        somar(margem.unscaledValue().negate());
+        quantidade--;
+    }
+
+    // Caminho da varredura colunar, com a margem já sem escala
+    void adicionar(long margemSemEscala) {
+        somar(margemSemEscala);
+        quantidade++;
+    }
+
+    void combinar(SomaMargem outra) {
+        somar(outra.soma);
+        excedente = excedente.add(outra.excedente);
+        quantidade += outra.quantidade;
+    }
+
+    private void somar(BigInteger valor) {
+        if (valor.bitLength() < 64) {
+            somar(valor.longValue());
+        } else {
+            excedente = excedente.add(valor);
+        }
+    }
+
+    private void somar(long valor) {
+        long resultado = soma + valor;
+        // Estouro: os dois operandos têm o mesmo sinal e o resultado, o sinal oposto
+        if (((soma ^ resultado) & (valor ^ resultado)) < 0) {
+            excedente = excedente.add(BigInteger.valueOf(soma)).add(BigInteger.valueOf(valor));
+            soma = 0;
+        } else {
+            soma = resultado;
+        }
+    }
+
+    long getQuantidade() {
+        return quantidade;
+    }
+
+    BigDecimal getSoma() {
+        return new BigDecimal(excedente.add(BigInteger.valueOf(soma)), Produto.ESCALA_MARGEM);
+    }
+
+    // A única divisão do cálculo, com a mesma escala e arredondamento das margens
+    BigDecimal media() {
+        return getSoma().divide(BigDecimal.valueOf(quantidade), Produto.ESCALA_MARGEM, RoundingMode.HALF_EVEN);
+    }
+
+    SomaMargem copia() {
+        SomaMargem copia = new SomaMargem();
+        copia.combinar(this);
+        return copia;
+    }
+}
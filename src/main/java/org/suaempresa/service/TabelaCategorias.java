@@ -0,0 +1,37 @@
+package org.suaempresa.service;
+
+import org.suaempresa.model.Categoria;
+
+import java.util.List;
+
+// Categorias indexadas pelo id; ids desconhecidos caem na primeira categoria cadastrada
+class TabelaCategorias {
+    private final Categoria[] porId;
+    private final Categoria padrao;
+
+    TabelaCategorias(List<Categoria> categorias) {
+        int maiorId = 0;
+        for (Categoria c : categorias) {
+            maiorId = Math.max(maiorId, c.getId());
+        }
+        porId = new Categoria[maiorId + 1];
+        for (Categoria c : categorias) {
+            if (c.getId() >= 0) {
+                porId[c.getId()] = c;
+            }
+        }
+        padrao = categorias.isEmpty() ? null : categorias.get(0);
+    }
+
+    // Todo id devolvido por buscar(...).getId() é menor que este valor
+    int limiteIds() {
+        return porId.length;
+    }
+
+    Categoria buscar(int id) {
+        if (id >= 0 && id < porId.length && porId[id] != null) {
+            return porId[id];
+        }
+        return padrao;
+    }
+}
@@ -0,0 +1,9 @@
+package org.suaempresa.service;
+
+// Como o ProdutoService guarda o catálogo em memória
+public enum TipoArmazenamento {
+    // Um objeto Produto por item, com relatórios e índice de validade incrementais
+    OBJETOS,
+    // Colunas de arrays primitivos; menos heap, relatórios por varredura das colunas
+    COLUNAR
+}
@@ -0,0 +1,85 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Dicionário de textos do armazenamento colunar: textos de produtos atualizados ou
+// excluídos saem do dicionário, e o conteúdo continua igual ao do armazenamento por objetos
+class CatalogoColunarTest {
+    private static final List<Categoria> CATEGORIAS = List.of(
+            new Categoria(1, "Alimentos", "A", "Perecíveis"),
+            new Categoria(2, "Limpeza", "B", "Casa"));
+
+    @Test
+    void textosSemUsoSaemDoDicionario() {
+        CatalogoColunar colunar = new CatalogoColunar(new TabelaCategorias(CATEGORIAS));
+        CatalogoObjetos objetos = new CatalogoObjetos();
+        Random aleatorio = new Random(7);
+        for (int rodada = 0; rodada < 20_000; rodada++) {
+            String codigo = String.format("ABC%05d", aleatorio.nextInt(2000));
+            if (aleatorio.nextInt(5) == 0) {
+                assertEquals(objetos.remover(codigo), colunar.remover(codigo));
+            } else {
+                // Poucos nomes repetidos entre produtos e muitas descrições únicas
+                Produto produto = produto(codigo, "Nome " + aleatorio.nextInt(50),
+                        aleatorio.nextInt(4) == 0 ? null : "Descrição " + rodada);
+                objetos.salvar(produto);
+                colunar.salvar(produto);
+            }
+        }
+        assertEquals(comoTexto(objetos.todos()), comoTexto(colunar.todos()));
+
+        Set<String> emUso = new HashSet<>();
+        for (Produto p : objetos.todos()) {
+            emUso.add(p.getNome());
+            if (p.getDescricao() != null) {
+                emUso.add(p.getDescricao());
+            }
+        }
+        assertEquals(emUso.size(), colunar.textosNoDicionario());
+    }
+
+    @Test
+    void copiaNaoVeTextosGravadosDepois() {
+        CatalogoColunar colunar = new CatalogoColunar(new TabelaCategorias(CATEGORIAS));
+        for (int i = 0; i < 100; i++) {
+            colunar.salvar(produto(String.format("ABC%05d", i), "Antigo " + i, "Descrição " + i));
+        }
+        List<String> antes = comoTexto(colunar.todos());
+        Collection<Produto> copia = colunar.copia();
+        // As posições soltas pelos nomes antigos são reaproveitadas pelos novos
+        for (int i = 0; i < 100; i++) {
+            colunar.salvar(produto(String.format("ABC%05d", i), "Novo " + i, "Descrição " + i));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            colunar.remover(String.format("ABC%05d", i));
+        }
+        assertEquals(antes, comoTexto(copia));
+        assertEquals(100, colunar.textosNoDicionario());
+    }
+
+    private static Produto produto(String codigo, String nome, String descricao) {
+        return new Produto(codigo, nome, descricao, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 6, 30),
+                new BigDecimal("2.50"), new BigDecimal("4.10"), 12, CATEGORIAS.get(codigo.hashCode() & 1));
+    }
+
+    private static List<String> comoTexto(Collection<Produto> produtos) {
+        List<String> linhas = new ArrayList<>();
+        for (Produto p : produtos) {
+            linhas.add(p.toString());
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,180 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Catálogo em dois fragmentos por faixa de categoria (1-2 em "baixas", 3-4 em "altas"):
+// roteamento, códigos únicos entre fragmentos, troca de fragmento e relatórios
+// consolidados iguais aos de um catálogo único com os mesmos produtos
+class CatalogoFragmentadoTest {
+    private static final String CATEGORIAS = "1;Alimentos;A;Perecíveis\n2;Limpeza;B;Casa\n"
+            + "3;Bebidas;C;Perecíveis\n4;Utilidades;D;Casa\n";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void alteracoesVaoParaOFragmentoDaCategoria() throws Exception {
+        CatalogoFragmentado catalogo = abrir();
+        try {
+            List<Categoria> categorias = catalogo.fragmento("baixas").getCategorias();
+            for (int i = 0; i < 8; i++) {
+                catalogo.cadastrarProduto(produto(String.format("ABC%05d", i), categorias.get(i % 4), 10, "2.00", "3.00")).join();
+            }
+            assertEquals(8, catalogo.quantidadeProdutos());
+            assertEquals(4, catalogo.fragmento("baixas").quantidadeProdutos());
+            for (int i = 0; i < 8; i++) {
+                String codigo = String.format("ABC%05d", i);
+                String esperado = i % 4 < 2 ? "baixas" : "altas";
+                assertEquals(Set.of(esperado), catalogo.localizarProduto(codigo).keySet());
+            }
+
+            // O mesmo código com uma categoria de outra faixa continua duplicado
+            Produto duplicado = produto("ABC00000", categorias.get(2), 1, "1.00", "2.00");
+            assertThrows(IllegalArgumentException.class, () -> catalogo.cadastrarProduto(duplicado));
+            assertNull(catalogo.fragmento("altas").consultarProduto("ABC00000"));
+
+            // Troca de categoria para outra faixa: o produto muda de fragmento
+            catalogo.atualizarProduto(produto("ABC00000", categorias.get(3), 7, "1.00", "2.00")).join();
+            Map<String, Produto> encontrados = catalogo.localizarProduto("ABC00000");
+            assertEquals(Set.of("altas"), encontrados.keySet());
+            assertEquals(7, encontrados.get("altas").getQuantidadeEstoque());
+
+            // Produto inválido: nada muda em nenhum fragmento
+            Produto invalido = produto("ABC00001", categorias.get(2), -1, "1.00", "2.00");
+            assertThrows(IllegalArgumentException.class, () -> catalogo.atualizarProduto(invalido));
+            assertEquals(Set.of("baixas"), catalogo.localizarProduto("ABC00001").keySet());
+
+            catalogo.excluirProduto("ABC00000").join();
+            assertEquals(Map.of(), catalogo.localizarProduto("ABC00000"));
+            assertEquals(7, catalogo.quantidadeProdutos());
+        } finally {
+            catalogo.fechar();
+        }
+    }
+
+    // Estados deixados por uma queda no meio da troca: só a origem atualizada, ou a
+    // origem atualizada e o destino já incluído
+    @Test
+    void trocaInterrompidaEConcluidaNaAbertura() throws Exception {
+        abrir().fechar();
+        ProdutoService baixas = new ProdutoService(diretorio.resolve("baixas"));
+        ProdutoService altas = new ProdutoService(diretorio.resolve("altas"));
+        List<Categoria> categorias = baixas.getCategorias();
+        Produto soNaOrigem = produto("ABC00001", categorias.get(2), 5, "1.00", "2.00");
+        Produto nosDois = produto("ABC00002", categorias.get(3), 6, "1.00", "2.00");
+        baixas.cadastrarProduto(soNaOrigem).join();
+        baixas.cadastrarProduto(nosDois).join();
+        altas.cadastrarProduto(nosDois).join();
+        baixas.cadastrarProduto(produto("ABC00003", categorias.get(0), 1, "1.00", "2.00")).join();
+        baixas.fechar();
+        altas.fechar();
+
+        CatalogoFragmentado catalogo = abrir();
+        try {
+            assertEquals(Set.of("altas"), catalogo.localizarProduto("ABC00001").keySet());
+            assertEquals(Set.of("altas"), catalogo.localizarProduto("ABC00002").keySet());
+            assertEquals(Set.of("baixas"), catalogo.localizarProduto("ABC00003").keySet());
+            assertEquals(5, catalogo.fragmento("altas").consultarProduto("ABC00001").getQuantidadeEstoque());
+            assertEquals(3, catalogo.quantidadeProdutos());
+        } finally {
+            catalogo.fechar();
+        }
+    }
+
+    @Test
+    void relatoriosConsolidadosIguaisAosDeUmCatalogoUnico() throws Exception {
+        Files.createDirectories(diretorio.resolve("unico"));
+        Files.writeString(diretorio.resolve("unico").resolve("categorias.csv"), CATEGORIAS);
+        ProdutoService unico = new ProdutoService(diretorio.resolve("unico"));
+        CatalogoFragmentado catalogo = abrir();
+        try {
+            List<Categoria> categorias = unico.getCategorias();
+            Random aleatorio = new Random(3);
+            for (int i = 0; i < 400; i++) {
+                // Poucos preços distintos, para que haja empates de margem decididos pelo código
+                BigDecimal compra = BigDecimal.valueOf(100 + 50 * aleatorio.nextInt(4), 2);
+                BigDecimal venda = compra.add(BigDecimal.valueOf(1 + aleatorio.nextInt(6) * 37, 2));
+                Produto p = produto(String.format("P%07d", i), categorias.get(aleatorio.nextInt(4)),
+                        aleatorio.nextInt(30), compra.toPlainString(), venda.toPlainString());
+                unico.cadastrarProduto(p).join();
+                catalogo.cadastrarProduto(p).join();
+            }
+
+            assertEquals(unico.margemLucroMediaPorCategoria(), catalogo.margemLucroMediaPorCategoria());
+            for (int limite : new int[]{1, 3, 50}) {
+                Map<String, MargensCategoria> esperado = new TreeMap<>(unico.relatorioPrecificacao(limite));
+                Map<String, MargensCategoria> obtido = new TreeMap<>(catalogo.relatorioPrecificacao(limite));
+                assertEquals(esperado.keySet(), obtido.keySet());
+                esperado.forEach((categoria, margens) -> {
+                    MargensCategoria consolidado = obtido.get(categoria);
+                    assertNotNull(consolidado);
+                    assertEquals(margens.getQuantidade(), consolidado.getQuantidade());
+                    assertEquals(margens.getMedia(), consolidado.getMedia());
+                    assertEquals(codigos(margens.getMaiores()), codigos(consolidado.getMaiores()));
+                    assertEquals(codigos(margens.getMenores()), codigos(consolidado.getMenores()));
+                });
+            }
+            assertEquals(codigos(unico.produtosEstoqueBaixo()), codigos(catalogo.produtosEstoqueBaixo()));
+            assertEquals(porSetor(unico.produtosPorSetor()), porSetor(catalogo.produtosPorSetor()));
+            ConsultaProdutos consulta = new ConsultaProdutos(Criterio.setor("Casa"))
+                    .ordenarPor(ConsultaProdutos.Ordenacao.CODIGO, true).limitar(25);
+            assertEquals(codigos(unico.consultar(consulta)), codigos(catalogo.consultar(consulta)));
+        } finally {
+            catalogo.fechar();
+            unico.fechar();
+        }
+    }
+
+    private CatalogoFragmentado abrir() throws Exception {
+        Map<String, Path> diretorios = new LinkedHashMap<>();
+        for (String nome : List.of("baixas", "altas")) {
+            Path fragmento = Files.createDirectories(diretorio.resolve(nome));
+            Files.writeString(fragmento.resolve("categorias.csv"), CATEGORIAS);
+            diretorios.put(nome, fragmento);
+        }
+        Function<Produto, String> roteamento = CatalogoFragmentado.porFaixaDeCategoria(new TreeMap<>(Map.of(1, "baixas", 3, "altas")));
+        return new CatalogoFragmentado(diretorios, TipoArmazenamento.OBJETOS, roteamento);
+    }
+
+    private static Produto produto(String codigo, Categoria categoria, int estoque, String compra, String venda) {
+        return new Produto(codigo, "Produto " + codigo, null, LocalDate.now().minusDays(5), LocalDate.now().plusDays(90),
+                new BigDecimal(compra), new BigDecimal(venda), estoque, categoria);
+    }
+
+    private static List<String> codigos(Collection<Produto> produtos) {
+        List<String> codigos = new ArrayList<>();
+        for (Produto p : produtos) {
+            codigos.add(p.getCodigo());
+        }
+        return codigos;
+    }
+
+    // Setor -> códigos ordenados: a ordem dentro do setor segue os fragmentos
+    private static Map<String, List<String>> porSetor(Map<String, List<Produto>> produtos) {
+        Map<String, List<String>> resultado = new TreeMap<>();
+        produtos.forEach((setor, lista) -> resultado.put(setor, codigos(lista).stream().sorted().toList()));
+        return resultado;
+    }
+}
@@ -0,0 +1,169 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Consultas por critérios: o índice escolhido pelo armazenamento de objetos e o
+// resultado dos dois armazenamentos, comparados com a varredura de todos os produtos
+class ConsultaProdutosTest {
+    private static final List<Categoria> CATEGORIAS = List.of(
+            new Categoria(1, "Alimentos", "A", "Perecíveis"),
+            new Categoria(2, "Limpeza", "B", "Casa"),
+            new Categoria(3, "Bebidas", "C", "Perecíveis"),
+            new Categoria(4, "Raros", "D", "Casa"));
+    private static final LocalDate HOJE = LocalDate.of(2025, 1, 1);
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void indiceMaisSeletivoEscolhido() {
+        CatalogoObjetos objetos = new CatalogoObjetos();
+        List<Produto> produtos = produtos(3000);
+        produtos.forEach(objetos::salvar);
+
+        Criterio raros = Criterio.categoria("Raros");
+        Criterio casa = Criterio.setor("Casa");
+        Criterio estoqueBaixo = Criterio.estoqueEntre(0, RelatoriosIncrementais.LIMITE_ESTOQUE_BAIXO - 1);
+        Criterio validade = Criterio.validadeEntre(HOJE, HOJE.plusDays(30));
+        assertEquals(contar(produtos, raros), objetos.estimativa(raros));
+        assertEquals(contar(produtos, casa), objetos.estimativa(casa));
+        assertEquals(contar(produtos, estoqueBaixo), objetos.estimativa(estoqueBaixo));
+        assertEquals(contar(produtos, validade), objetos.estimativa(validade));
+        // Sem índice: preço, margem e estoque fora da faixa de estoque baixo
+        assertEquals(Integer.MAX_VALUE, objetos.estimativa(Criterio.precoVendaEntre(BigDecimal.ONE, BigDecimal.TEN)));
+        assertEquals(Integer.MAX_VALUE, objetos.estimativa(Criterio.margemEntre(BigDecimal.ZERO, null)));
+        assertEquals(Integer.MAX_VALUE, objetos.estimativa(Criterio.estoqueEntre(0, 50)));
+        // "e" usa o índice com menos candidatos; "ou" soma os candidatos de todos
+        assertEquals(Math.min(contar(produtos, raros), contar(produtos, validade)),
+                objetos.estimativa(Criterio.e(validade, raros, Criterio.estoqueEntre(0, 50))));
+        assertEquals(contar(produtos, raros), objetos.estimativa(Criterio.e(Criterio.precoVendaEntre(null, BigDecimal.TEN), raros)));
+        assertEquals(contar(produtos, raros) + contar(produtos, estoqueBaixo), objetos.estimativa(Criterio.ou(raros, estoqueBaixo)));
+        assertEquals(Integer.MAX_VALUE, objetos.estimativa(Criterio.ou(raros, Criterio.margemEntre(null, BigDecimal.ONE))));
+    }
+
+    @Test
+    void mesmoResultadoQueAVarredura() {
+        List<Produto> produtos = produtos(3000);
+        CatalogoObjetos objetos = new CatalogoObjetos();
+        CatalogoColunar colunar = new CatalogoColunar(new TabelaCategorias(CATEGORIAS));
+        for (Produto p : produtos) {
+            objetos.salvar(p);
+            colunar.salvar(p);
+        }
+        List<Criterio> criterios = List.of(
+                Criterio.categoria("Raros"),
+                Criterio.setor("Perecíveis"),
+                Criterio.estoqueEntre(0, 5),
+                Criterio.estoqueEntre(3, 40),
+                Criterio.validadeEntre(HOJE, HOJE.plusDays(30)),
+                Criterio.validadeEntre(null, HOJE),
+                Criterio.precoVendaEntre(new BigDecimal("3.5"), new BigDecimal("7.25")),
+                Criterio.margemEntre(new BigDecimal("0.5"), null),
+                Criterio.e(Criterio.setor("Casa"), Criterio.validadeEntre(HOJE.minusDays(60), HOJE.plusDays(60))),
+                Criterio.e(Criterio.categoria("Alimentos"), Criterio.precoVendaEntre(null, new BigDecimal("5"))),
+                Criterio.ou(Criterio.categoria("Raros"), Criterio.estoqueEntre(0, 2)),
+                Criterio.ou(Criterio.validadeEntre(null, HOJE), Criterio.margemEntre(null, new BigDecimal("0.2"))),
+                Criterio.e(Criterio.ou(Criterio.categoria("Bebidas"), Criterio.categoria("Raros")),
+                        Criterio.estoqueEntre(0, 8), Criterio.precoVendaEntre(new BigDecimal("2"), null)));
+        for (Criterio criterio : criterios) {
+            List<String> esperados = new ArrayList<>();
+            for (Produto p : produtos) {
+                if (criterio.aceita(p)) {
+                    esperados.add(p.getCodigo());
+                }
+            }
+            // Pelo índice a ordem é a do índice; o conjunto tem de ser o mesmo
+            List<String> porObjetos = codigos(objetos.filtrar(criterio));
+            assertEquals(esperados.size(), porObjetos.size());
+            assertEquals(new HashSet<>(esperados), new HashSet<>(porObjetos));
+            assertEquals(esperados, codigos(colunar.filtrar(criterio)));
+        }
+    }
+
+    @Test
+    void ordenacaoELimiteSobreOResultado() throws Exception {
+        Files.writeString(diretorio.resolve("categorias.csv"),
+                "1;Alimentos;A;Perecíveis\n2;Limpeza;B;Casa\n3;Bebidas;C;Perecíveis\n4;Raros;D;Casa\n");
+        ProdutoService service = new ProdutoService(diretorio);
+        try {
+            List<Produto> produtos = new ArrayList<>();
+            for (Produto p : produtos(300)) {
+                // Datas válidas para o cadastro (fabricação no passado, validade futura)
+                Produto valido = new Produto(p.getCodigo(), p.getNome(), p.getDescricao(),
+                        LocalDate.now().minusDays(1), LocalDate.now().plusDays(1 + p.getQuantidadeEstoque()),
+                        p.getPrecoCompra(), p.getPrecoVenda(), p.getQuantidadeEstoque(),
+                        service.getCategorias().get(p.getCategoria().getId() - 1));
+                service.cadastrarProduto(valido).join();
+                produtos.add(valido);
+            }
+            Criterio criterio = Criterio.e(Criterio.setor("Perecíveis"), Criterio.estoqueEntre(0, 20));
+            List<Produto> esperados = new ArrayList<>();
+            for (Produto p : produtos) {
+                if (criterio.aceita(p)) {
+                    esperados.add(p);
+                }
+            }
+            esperados.sort(Comparator.comparing(Produto::getPrecoVenda).reversed());
+            List<Produto> resultado = service.consultar(new ConsultaProdutos(criterio)
+                    .ordenarPor(ConsultaProdutos.Ordenacao.PRECO_VENDA, true).limitar(10));
+            assertEquals(10, resultado.size());
+            for (int i = 0; i < 10; i++) {
+                assertEquals(esperados.get(i).getPrecoVenda(), resultado.get(i).getPrecoVenda());
+            }
+            assertEquals(codigos(service.consultar(new ConsultaProdutos(criterio).ordenarPor(ConsultaProdutos.Ordenacao.CODIGO))),
+                    codigos(esperados).stream().sorted().toList());
+        } finally {
+            service.fechar();
+        }
+    }
+
+    // Preços em centavos, validade em até dois anos, estoque de 0 a 39 e a categoria
+    // "Raros" com poucos produtos
+    private static List<Produto> produtos(int quantidade) {
+        Random aleatorio = new Random(5);
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            BigDecimal compra = BigDecimal.valueOf(100 + aleatorio.nextInt(400), 2);
+            BigDecimal venda = compra.add(BigDecimal.valueOf(1 + aleatorio.nextInt(500), 2));
+            Categoria categoria = CATEGORIAS.get(aleatorio.nextInt(20) == 0 ? 3 : aleatorio.nextInt(3));
+            produtos.add(new Produto(String.format("ABC%05d", i), "Produto " + i, null,
+                    HOJE.minusDays(400), HOJE.plusDays(aleatorio.nextInt(730) - 365),
+                    compra, venda, aleatorio.nextInt(40), categoria));
+        }
+        return produtos;
+    }
+
+    private static int contar(List<Produto> produtos, Criterio criterio) {
+        int n = 0;
+        for (Produto p : produtos) {
+            if (criterio.aceita(p)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static List<String> codigos(Collection<Produto> produtos) {
+        List<String> codigos = new ArrayList<>();
+        for (Produto p : produtos) {
+            codigos.add(p.getCodigo());
+        }
+        return codigos;
+    }
+}
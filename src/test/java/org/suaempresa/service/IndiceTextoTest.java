@@ -0,0 +1,120 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Busca por prefixo sem acentos e sem diferença de maiúsculas, e a mesma resposta que
+// uma varredura de todos os textos depois de exclusões, compactação e reúso de ids
+class IndiceTextoTest {
+    private static final String[] VOCABULARIO = {"arroz", "arrozal", "feijão", "feijoada", "Açúcar", "acucareiro",
+            "café", "CAFETEIRA", "sal", "salgado", "pão", "Pãozinho"};
+    private static final String[] CONSULTAS = {"arr", "ARROZ", "feij", "feijao", "açu", "ACUCAR", "caf", "cafe sal",
+            "sal", "pao", "PÃOZ", "salgado arroz", "inexistente", "p1"};
+
+    @Test
+    void prefixoIgnoraAcentosEMaiusculas() {
+        IndiceTexto indice = new IndiceTexto();
+        indice.adicionar("ABC00001", "Açúcar Cristal", "Pacote de 1 kg");
+        indice.adicionar("ABC00002", "Açucareiro de vidro", "Para AÇÚCAR e adoçante");
+        indice.adicionar("ABC00003", "Café torrado", "Moído");
+
+        assertEquals(List.of("ABC00001", "ABC00002"), indice.buscar("acu", 10));
+        assertEquals(List.of("ABC00001", "ABC00002"), indice.buscar("AÇÚ", 10));
+        // Palavra exata no nome vale mais que prefixo no nome, que vale mais que a descrição
+        assertEquals(List.of("ABC00001", "ABC00002"), indice.buscar("açúcar", 10));
+        assertEquals(List.of("ABC00002"), indice.buscar("ADOCA", 10));
+        assertEquals(List.of("ABC00003"), indice.buscar("CAFÉ moi", 10));
+        assertEquals(List.of(), indice.buscar("açúcar café", 10));
+        assertEquals(List.of("ABC00001"), indice.buscar("acu", 1));
+    }
+
+    @Test
+    void exclusaoECompactacaoMantemABuscaIgualAVarredura() {
+        IndiceTexto indice = new IndiceTexto();
+        Map<String, String[]> textos = new LinkedHashMap<>();
+        Random aleatorio = new Random(11);
+        for (int i = 0; i < 6000; i++) {
+            adicionar(indice, textos, "P" + i, aleatorio);
+        }
+        conferir(indice, textos);
+
+        // Mais da metade excluída: as listas são compactadas e os ids mortos liberados
+        List<String> codigos = new ArrayList<>(textos.keySet());
+        Collections.shuffle(codigos, aleatorio);
+        for (String codigo : codigos.subList(0, 4000)) {
+            indice.remover(codigo);
+            textos.remove(codigo);
+        }
+        conferir(indice, textos);
+
+        // Produtos novos reaproveitam os ids; as ocorrências dos antigos não podem aparecer
+        for (int i = 0; i < 3000; i++) {
+            adicionar(indice, textos, "N" + i, aleatorio);
+        }
+        conferir(indice, textos);
+    }
+
+    private static void adicionar(IndiceTexto indice, Map<String, String[]> textos, String codigo, Random aleatorio) {
+        String nome = VOCABULARIO[aleatorio.nextInt(VOCABULARIO.length)] + " " + codigo;
+        String descricao = aleatorio.nextInt(3) == 0 ? null
+                : VOCABULARIO[aleatorio.nextInt(VOCABULARIO.length)] + " " + VOCABULARIO[aleatorio.nextInt(VOCABULARIO.length)];
+        indice.adicionar(codigo, nome, descricao);
+        textos.put(codigo, new String[]{nome, descricao});
+    }
+
+    // Resultado completo da busca: os mesmos códigos da varredura, em ordem de pontuação não crescente
+    private static void conferir(IndiceTexto indice, Map<String, String[]> textos) {
+        for (String consulta : CONSULTAS) {
+            List<String> termos = IndiceTexto.palavras(consulta);
+            Map<String, Integer> esperados = new LinkedHashMap<>();
+            textos.forEach((codigo, texto) -> {
+                int pontos = pontuacao(termos, texto[0], texto[1]);
+                if (pontos > 0) {
+                    esperados.put(codigo, pontos);
+                }
+            });
+            List<String> encontrados = indice.buscar(consulta, Integer.MAX_VALUE);
+            assertEquals(esperados.keySet(), new HashSet<>(encontrados), consulta);
+            for (int i = 1; i < encontrados.size(); i++) {
+                assertTrue(esperados.get(encontrados.get(i - 1)) >= esperados.get(encontrados.get(i)), consulta);
+            }
+            Set<String> primeiros = new HashSet<>(indice.buscar(consulta, 5));
+            assertEquals(Math.min(5, esperados.size()), primeiros.size(), consulta);
+        }
+    }
+
+    // Soma, por termo, da melhor ocorrência: 4 palavra do nome, 3 prefixo no nome,
+    // 2 palavra da descrição, 1 prefixo na descrição; 0 se algum termo não aparece
+    private static int pontuacao(List<String> termos, String nome, String descricao) {
+        int total = 0;
+        for (String termo : termos) {
+            int melhor = 0;
+            for (String palavra : IndiceTexto.palavras(nome)) {
+                if (palavra.startsWith(termo)) {
+                    melhor = Math.max(melhor, palavra.equals(termo) ? 4 : 3);
+                }
+            }
+            for (String palavra : IndiceTexto.palavras(descricao)) {
+                if (palavra.startsWith(termo)) {
+                    melhor = Math.max(melhor, palavra.equals(termo) ? 2 : 1);
+                }
+            }
+            if (melhor == 0) {
+                return 0;
+            }
+            total += melhor;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,144 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Formato dos registros do journal: textos escapados, registros do formato antigo e
+// o registro final truncado por uma queda no meio da escrita
+class JournalProdutosTest {
+    private static final List<Categoria> CATEGORIAS = List.of(new Categoria(1, "Alimentos", "A", "Perecíveis"));
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void escaparEDesescaparSaoInversos() {
+        String[] textos = {"", "simples", "a;b;c", "linha1\nlinha2\r\nlinha3", "barra \\ no meio",
+                "\\p não é ';'", "\\0", "\\", "fim com barra\\", ";;\n\\\\"};
+        for (String texto : textos) {
+            String escapado = LeitorCsvProdutos.escapar(texto);
+            assertEquals(-1, escapado.indexOf(';'), escapado);
+            assertEquals(-1, escapado.indexOf('\n'), escapado);
+            assertEquals(-1, escapado.indexOf('\r'), escapado);
+            assertEquals(texto, LeitorCsvProdutos.desescapar(escapado));
+        }
+        assertEquals("\\0", LeitorCsvProdutos.escapar(null));
+        assertNull(LeitorCsvProdutos.desescapar(LeitorCsvProdutos.escapar(null)));
+    }
+
+    @Test
+    void linhaEscapadaVoltaAoMesmoProduto() {
+        LeitorCsvProdutos leitor = new LeitorCsvProdutos(CATEGORIAS);
+        Produto comSeparadores = produto("ABC12345", "Nome; com \\ barra", "Descrição;\ncom\r\nquebras\\p");
+        Produto semDescricao = produto("ABC12346", "Sem descrição", null);
+        for (Produto produto : List.of(comSeparadores, semDescricao)) {
+            Produto lido = leitor.parseLinhaEscapada(LeitorCsvProdutos.linhaEscapada(produto));
+            assertEquals(produto.getNome(), lido.getNome());
+            assertEquals(produto.getDescricao(), lido.getDescricao());
+            assertEquals(produto.toString(), lido.toString());
+        }
+    }
+
+    @Test
+    void inclusoesGravadasSaoReaplicadasComOsMesmosTextos() throws Exception {
+        Path log = diretorio.resolve("produtos.log");
+        Produto produto = produto("ABC12345", "Nome;estranho", "várias\nlinhas; e \\ barras");
+        try (JournalProdutos journal = new JournalProdutos(log)) {
+            journal.registrarInclusao(produto).join();
+            journal.registrarExclusao("ZZZ00000").join();
+            journal.registrarMovimento("ABC12345", EstoqueVersionado.compor(3, 7)).join();
+        }
+        assertEquals(3, Files.readAllLines(log).size());
+
+        List<String> inclusoes = new ArrayList<>();
+        List<String> exclusoes = new ArrayList<>();
+        List<String> movimentos = new ArrayList<>();
+        JournalProdutos.reproduzir(log, inclusoes::add, exclusoes::add, movimentos::add);
+        assertEquals(1, inclusoes.size());
+        assertEquals(produto.toString(), new LeitorCsvProdutos(CATEGORIAS).parseLinhaEscapada(inclusoes.get(0)).toString());
+        assertEquals(List.of("ZZZ00000"), exclusoes);
+        assertEquals(List.of("ABC12345;3;7"), movimentos);
+    }
+
+    @Test
+    void registroAntigoSemEscapeContinuaLegivel() throws Exception {
+        Path log = diretorio.resolve("produtos.log");
+        Produto produto = produto("ABC12345", "Nome com \\ barra", "Descrição \\n literal");
+        Files.writeString(log, JournalProdutos.INCLUSAO + ";" + produto + "\n", StandardCharsets.UTF_8);
+
+        List<String> inclusoes = new ArrayList<>();
+        JournalProdutos.reproduzir(log, inclusoes::add, codigo -> { }, registro -> { });
+        assertEquals(1, inclusoes.size());
+        Produto lido = new LeitorCsvProdutos(CATEGORIAS).parseLinhaEscapada(inclusoes.get(0));
+        assertEquals("Nome com \\ barra", lido.getNome());
+        assertEquals("Descrição \\n literal", lido.getDescricao());
+    }
+
+    @Test
+    void registroFinalTruncadoNaoEReaplicado() throws Exception {
+        Path log = diretorio.resolve("produtos.log");
+        String completo = JournalProdutos.INCLUSAO_ESCAPADA + ";"
+                + LeitorCsvProdutos.linhaEscapada(produto("ABC12345", "Completo", "d")) + "\n";
+        String truncado = JournalProdutos.INCLUSAO_ESCAPADA + ";"
+                + LeitorCsvProdutos.linhaEscapada(produto("ABC12346", "Truncado", "d"));
+        Files.writeString(log, completo + JournalProdutos.EXCLUSAO + ";XYZ00000\n"
+                + truncado.substring(0, truncado.length() / 2), StandardCharsets.UTF_8);
+
+        List<String> inclusoes = new ArrayList<>();
+        List<String> exclusoes = new ArrayList<>();
+        MetricasProdutos metricas = new MetricasProdutos();
+        JournalProdutos.reproduzir(log, metricas, inclusoes::add, exclusoes::add, registro -> { });
+        assertEquals(1, inclusoes.size());
+        assertTrue(inclusoes.get(0).startsWith("ABC12345;Completo;"));
+        assertEquals(List.of("XYZ00000"), exclusoes);
+        assertEquals(1, metricas.getRegistrosIgnorados());
+
+        // Ao reabrir, o final incompleto é cortado e o próximo registro começa em linha própria
+        try (JournalProdutos journal = new JournalProdutos(log)) {
+            journal.registrarExclusao("ABC12345").join();
+        }
+        List<String> linhas = Files.readAllLines(log);
+        assertEquals(3, linhas.size());
+        assertEquals(JournalProdutos.EXCLUSAO + ";ABC12345", linhas.get(2));
+    }
+
+    @Test
+    void registrosReaplicadosEIgnoradosSaoContadosNaAbertura() throws Exception {
+        Files.writeString(diretorio.resolve("categorias.csv"), "1;Alimentos;A;Perecíveis\n");
+        Path log = diretorio.resolve("produtos.log");
+        Produto produto = produto("ABC12345", "Produto", "d");
+        Files.writeString(log, JournalProdutos.INCLUSAO_ESCAPADA + ";" + LeitorCsvProdutos.linhaEscapada(produto) + "\n"
+                + JournalProdutos.MOVIMENTO + ";ABC12345;1;20\n"
+                + JournalProdutos.MOVIMENTO + ";ZZZ99999;1;5\n"
+                + "?;registro desconhecido\n"
+                + JournalProdutos.EXCLUSAO + ";ABC12345\n", StandardCharsets.UTF_8);
+
+        ProdutoService service = new ProdutoService(diretorio);
+        try {
+            assertEquals(3, service.getMetricas().getRegistrosReaplicados());
+            assertEquals(2, service.getMetricas().getRegistrosIgnorados());
+            assertEquals(0, service.quantidadeProdutos());
+        } finally {
+            service.fechar();
+        }
+    }
+
+    private static Produto produto(String codigo, String nome, String descricao) {
+        return new Produto(codigo, nome, descricao, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 6, 30),
+                new BigDecimal("2.50"), new BigDecimal("4.10"), 12, CATEGORIAS.get(0));
+    }
+}
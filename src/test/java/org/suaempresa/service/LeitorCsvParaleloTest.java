@@ -0,0 +1,69 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.suaempresa.model.Categoria;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// A carga paralela, com blocos pequenos, tem de dar o mesmo resultado que a sequencial:
+// mesmos produtos na mesma ordem e mesmos erros nas mesmas linhas
+class LeitorCsvParaleloTest {
+    private static final List<Categoria> CATEGORIAS = List.of(
+            new Categoria(1, "Alimentos", "A", "Perecíveis"),
+            new Categoria(2, "Limpeza", "B", "Casa"));
+    private static final String[] QUEBRAS = {"\n", "\r\n", "\r"};
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void mesmoResultadoQueALeituraSequencialComQualquerQuebraDeLinha() throws Exception {
+        Random aleatorio = new Random(42);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            String linha = switch (aleatorio.nextInt(20)) {
+                case 0 -> "";
+                case 1 -> "linha;inválida";
+                case 2 -> String.format("P%07d;Nome;Descrição;2024-01-10;data ruim;1.00;2.00;3;1", i);
+                default -> String.format("P%07d;Produto %d;Descrição ç %d;2024-01-10;2025-03-01;1.%02d;2.50;%d;%d",
+                        i, i, i, i % 100, i % 50, 1 + i % 2);
+            };
+            csv.append(linha).append(QUEBRAS[aleatorio.nextInt(QUEBRAS.length)]);
+        }
+        Path arquivo = diretorio.resolve("produtos.csv");
+        Files.writeString(arquivo, csv, StandardCharsets.UTF_8);
+
+        List<String> sequenciais = new ArrayList<>();
+        ResultadoCarga sequencial = new LeitorCsvProdutos(CATEGORIAS).carregar(arquivo, p -> sequenciais.add(p.toString()));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long tamanhoBloco : new long[]{1, 97, 4096, LeitorCsvParalelo.TAMANHO_BLOCO}) {
+                List<String> paralelos = new ArrayList<>();
+                ResultadoCarga paralelo = new LeitorCsvParalelo(CATEGORIAS, pool, tamanhoBloco)
+                        .carregar(arquivo, p -> paralelos.add(p.toString()));
+                assertEquals(sequenciais, paralelos);
+                assertEquals(sequencial.getLinhas(), paralelo.getLinhas());
+                assertEquals(texto(sequencial.getErros()), texto(paralelo.getErros()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<String> texto(List<ResultadoCarga.ErroLinha> erros) {
+        List<String> linhas = new ArrayList<>();
+        for (ResultadoCarga.ErroLinha erro : erros) {
+            linhas.add(erro.getNumeroLinha() + ": " + erro.getMensagem());
+        }
+        return linhas;
+    }
+}
@@ -0,0 +1,166 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Somas de margem sem arredondamento (inclusive quando o long estoura) e as n maiores
+// e menores margens, comparadas com a soma em BigDecimal e a ordenação de todos os produtos
+class MargensTest {
+    private static final Categoria CATEGORIA = new Categoria(1, "Alimentos", "A", "Perecíveis");
+    private static final Comparator<Produto> POR_MARGEM =
+            Comparator.comparing(Produto::getMargem).thenComparing(Produto::getCodigo);
+
+    @Test
+    void somaExataIgualABigDecimal() {
+        Random aleatorio = new Random(13);
+        List<BigDecimal> margens = new ArrayList<>();
+        SomaMargem soma = new SomaMargem();
+        SomaMargem[] partes = {new SomaMargem(), new SomaMargem(), new SomaMargem()};
+        for (int i = 0; i < 5000; i++) {
+            BigDecimal compra = BigDecimal.valueOf(1 + aleatorio.nextInt(100_000), 2);
+            BigDecimal venda = BigDecimal.valueOf(1 + aleatorio.nextInt(100_000), 2);
+            BigDecimal margem = Produto.calcularMargem(compra, venda);
+            margens.add(margem);
+            soma.adicionar(margem);
+            partes[i % 3].adicionar(margem.unscaledValue().longValueExact());
+        }
+        List<BigDecimal> todas = new ArrayList<>(margens);
+        // Remoções devolvem a soma ao valor das margens que ficaram
+        for (int i = 0; i < 1000; i++) {
+            soma.remover(margens.remove(aleatorio.nextInt(margens.size())));
+        }
+        assertEquals(somar(margens), soma.getSoma());
+        assertEquals(margens.size(), soma.getQuantidade());
+        assertEquals(somar(margens).divide(BigDecimal.valueOf(margens.size()), Produto.ESCALA_MARGEM, RoundingMode.HALF_EVEN),
+                soma.media());
+
+        SomaMargem combinada = new SomaMargem();
+        for (SomaMargem parte : partes) {
+            combinada.combinar(parte);
+        }
+        assertEquals(5000, combinada.getQuantidade());
+        assertEquals(somar(todas), combinada.getSoma());
+        assertEquals(combinada.getSoma(), combinada.copia().getSoma());
+    }
+
+    @Test
+    void somaQueEstouraOLongContinuaExata() {
+        long grande = Long.MAX_VALUE - 5;
+        SomaMargem soma = new SomaMargem();
+        BigInteger esperada = BigInteger.ZERO;
+        for (int i = 0; i < 10; i++) {
+            soma.adicionar(grande);
+            esperada = esperada.add(BigInteger.valueOf(grande));
+        }
+        // Valores que nem cabem em long vão direto para o excedente
+        BigDecimal enorme = new BigDecimal(BigInteger.valueOf(Long.MAX_VALUE).pow(2), Produto.ESCALA_MARGEM);
+        soma.adicionar(enorme);
+        esperada = esperada.add(enorme.unscaledValue());
+        for (int i = 0; i < 3; i++) {
+            soma.remover(new BigDecimal(BigInteger.valueOf(grande), Produto.ESCALA_MARGEM));
+            esperada = esperada.subtract(BigInteger.valueOf(grande));
+        }
+        assertEquals(new BigDecimal(esperada, Produto.ESCALA_MARGEM), soma.getSoma());
+        assertEquals(8, soma.getQuantidade());
+
+        SomaMargem negativa = new SomaMargem();
+        negativa.adicionar(Long.MIN_VALUE);
+        negativa.adicionar(Long.MIN_VALUE);
+        negativa.adicionar(1);
+        assertEquals(new BigDecimal(BigInteger.valueOf(Long.MIN_VALUE).shiftLeft(1).add(BigInteger.ONE), Produto.ESCALA_MARGEM),
+                negativa.getSoma());
+        soma.combinar(negativa);
+        assertEquals(new BigDecimal(esperada.add(negativa.getSoma().unscaledValue()), Produto.ESCALA_MARGEM), soma.getSoma());
+    }
+
+    @Test
+    void extremosIguaisAOrdenarTodos() {
+        Random aleatorio = new Random(17);
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // Poucos preços distintos, para que haja muitos empates decididos pelo código
+            BigDecimal compra = BigDecimal.valueOf(100 + 50 * aleatorio.nextInt(4), 2);
+            BigDecimal venda = compra.add(BigDecimal.valueOf(1 + 37 * aleatorio.nextInt(6), 2));
+            produtos.add(produto(String.format("P%07d", aleatorio.nextInt(1_000_000)) + i, compra, venda));
+        }
+        List<Produto> ordenados = new ArrayList<>(produtos);
+        ordenados.sort(POR_MARGEM);
+
+        for (int limite : new int[]{1, 5, 40, 3000}) {
+            ExtremosMargem extremos = new ExtremosMargem(limite);
+            ExtremosMargem[] partes = {new ExtremosMargem(limite), new ExtremosMargem(limite)};
+            for (int i = 0; i < produtos.size(); i++) {
+                extremos.oferecer(produtos.get(i));
+                partes[aleatorio.nextInt(2)].oferecer(produtos.get(i));
+            }
+            int n = Math.min(limite, ordenados.size());
+            List<String> menores = codigos(ordenados.subList(0, n));
+            List<String> maiores = codigos(ordenados.subList(ordenados.size() - n, ordenados.size()));
+            Collections.reverse(maiores);
+            assertEquals(maiores, codigos(extremos.getMaiores()));
+            assertEquals(menores, codigos(extremos.getMenores()));
+
+            // Combinar os dois grupos dá o mesmo que oferecer tudo a um só
+            ExtremosMargem combinados = new ExtremosMargem(limite);
+            combinados.combinar(partes[0]);
+            combinados.combinar(partes[1]);
+            assertEquals(maiores, codigos(combinados.getMaiores()));
+            assertEquals(menores, codigos(combinados.getMenores()));
+        }
+    }
+
+    @Test
+    void entrariaSoQuandoOProdutoMudariaOsExtremos() {
+        ExtremosMargem extremos = new ExtremosMargem(2);
+        extremos.oferecer(produto("B", new BigDecimal("1.00"), new BigDecimal("1.10")));
+        assertTrue(extremos.entraria(new BigDecimal("50"), "Z"));
+        extremos.oferecer(produto("C", new BigDecimal("1.00"), new BigDecimal("1.20")));
+        extremos.oferecer(produto("D", new BigDecimal("1.00"), new BigDecimal("1.30")));
+        extremos.oferecer(produto("E", new BigDecimal("1.00"), new BigDecimal("1.40")));
+        // Menores: B (10%) e C (20%); maiores: E (40%) e D (30%)
+        assertFalse(extremos.entraria(Produto.calcularMargem(new BigDecimal("1.00"), new BigDecimal("1.25")), "X"));
+        assertTrue(extremos.entraria(Produto.calcularMargem(new BigDecimal("1.00"), new BigDecimal("1.50")), "X"));
+        assertTrue(extremos.entraria(Produto.calcularMargem(new BigDecimal("1.00"), new BigDecimal("1.05")), "X"));
+        // Empate com C: entra só se o código vier antes
+        BigDecimal vinte = Produto.calcularMargem(new BigDecimal("1.00"), new BigDecimal("1.20"));
+        assertTrue(extremos.entraria(vinte, "A"));
+        assertFalse(extremos.entraria(vinte, "Z"));
+    }
+
+    private static BigDecimal somar(List<BigDecimal> margens) {
+        BigDecimal total = BigDecimal.ZERO.setScale(Produto.ESCALA_MARGEM);
+        for (BigDecimal margem : margens) {
+            total = total.add(margem);
+        }
+        return total;
+    }
+
+    private static Produto produto(String codigo, BigDecimal compra, BigDecimal venda) {
+        return new Produto(codigo, "Produto " + codigo, null, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 6, 30),
+                compra, venda, 10, CATEGORIA);
+    }
+
+    private static List<String> codigos(Collection<Produto> produtos) {
+        List<String> codigos = new ArrayList<>();
+        for (Produto p : produtos) {
+            codigos.add(p.getCodigo());
+        }
+        return codigos;
+    }
+}
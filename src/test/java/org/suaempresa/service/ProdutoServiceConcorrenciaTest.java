@@ -0,0 +1,196 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Escritores alterando o catálogo (cada um com os seus códigos, mais produtos comuns a
+// todos que só recebem movimentações) enquanto leitores listam e geram relatórios.
+// O estado final é conhecido de antemão e tem de ser o mesmo depois de reabrir o
+// serviço a partir do snapshot e do journal gravados.
+class ProdutoServiceConcorrenciaTest {
+    private static final int ESCRITORES = 4;
+    private static final int LEITORES = 3;
+    private static final int PRODUTOS_POR_ESCRITOR = 500;
+    private static final int COMUNS = 20;
+    private static final int MOVIMENTOS_COMUNS = 50;
+    private static final int ESTOQUE_INICIAL = 10;
+    // Cada produto próprio: atualizado para ESTOQUE_INICIAL, +5 três vezes e -3
+    private static final int ESTOQUE_FINAL_PROPRIO = ESTOQUE_INICIAL + 3 * 5 - 3;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void alteracoesConcorrentesNoArmazenamentoDeObjetos() throws Exception {
+        executar(TipoArmazenamento.OBJETOS);
+    }
+
+    @Test
+    void alteracoesConcorrentesNoArmazenamentoColunar() throws Exception {
+        executar(TipoArmazenamento.COLUNAR);
+    }
+
+    private void executar(TipoArmazenamento armazenamento) throws Exception {
+        Files.writeString(diretorio.resolve("categorias.csv"), "1;Alimentos;A;Perecíveis\n2;Limpeza;B;Casa\n");
+        ProdutoService service = new ProdutoService(diretorio, progresso -> { }, armazenamento);
+        List<Categoria> categorias = service.getCategorias();
+        for (int i = 0; i < COMUNS; i++) {
+            service.cadastrarProduto(produto(String.format("COMUM%03d", i), "Comum " + i, categorias.get(i % 2))).join();
+        }
+
+        Queue<Throwable> erros = new ConcurrentLinkedQueue<>();
+        Queue<CompletableFuture<Void>> gravacoes = new ConcurrentLinkedQueue<>();
+        AtomicBoolean escrevendo = new AtomicBoolean(true);
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(ESCRITORES + LEITORES);
+        List<Future<?>> escritores = new ArrayList<>();
+        for (int e = 0; e < ESCRITORES; e++) {
+            int escritor = e;
+            escritores.add(threads.submit(() -> registrandoErros(erros, () -> {
+                largada.await();
+                escrever(service, escritor, categorias, gravacoes);
+            })));
+        }
+        for (int l = 0; l < LEITORES; l++) {
+            threads.submit(() -> registrandoErros(erros, () -> {
+                largada.await();
+                while (escrevendo.get()) {
+                    ler(service);
+                }
+            }));
+        }
+        largada.countDown();
+        for (Future<?> escritor : escritores) {
+            escritor.get(2, TimeUnit.MINUTES);
+        }
+        escrevendo.set(false);
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(1, TimeUnit.MINUTES));
+        for (CompletableFuture<Void> gravacao : gravacoes) {
+            gravacao.join();
+        }
+
+        assertTrue(erros.stream().noneMatch(t -> t instanceof ConcurrentModificationException),
+                () -> "ConcurrentModificationException: " + erros);
+        assertTrue(erros.isEmpty(), () -> "Erros nas threads: " + erros);
+
+        int excluidosPorEscritor = (PRODUTOS_POR_ESCRITOR + 3) / 4;
+        int proprios = ESCRITORES * (PRODUTOS_POR_ESCRITOR - excluidosPorEscritor);
+        List<Produto> finais = service.listarTodos();
+        assertEquals(COMUNS + proprios, finais.size());
+        assertEquals(COMUNS + proprios, service.quantidadeProdutos());
+        long estoqueComuns = 0;
+        long estoqueProprios = 0;
+        for (Produto p : finais) {
+            if (p.getCodigo().startsWith("COMUM")) {
+                assertEquals(ESTOQUE_INICIAL + ESCRITORES * MOVIMENTOS_COMUNS, p.getQuantidadeEstoque(), p.getCodigo());
+                estoqueComuns += p.getQuantidadeEstoque();
+            } else {
+                assertEquals("Atualizado " + p.getCodigo(), p.getNome());
+                estoqueProprios += p.getQuantidadeEstoque();
+            }
+        }
+        assertEquals((long) COMUNS * (ESTOQUE_INICIAL + ESCRITORES * MOVIMENTOS_COMUNS), estoqueComuns);
+        assertEquals((long) proprios * ESTOQUE_FINAL_PROPRIO, estoqueProprios);
+        assertEquals(10, service.pesquisarProdutos("Atualizado", 10).size());
+        assertTrue(service.pesquisarProdutos("Novo", 10).isEmpty());
+
+        List<String> emMemoria = comoTexto(finais);
+        service.fechar();
+        ProdutoService reaberto = new ProdutoService(diretorio, progresso -> { }, armazenamento);
+        try {
+            assertEquals(emMemoria, comoTexto(reaberto.listarTodos()));
+        } finally {
+            reaberto.fechar();
+        }
+    }
+
+    private static void escrever(ProdutoService service, int escritor, List<Categoria> categorias,
+                                 Queue<CompletableFuture<Void>> gravacoes) {
+        for (int j = 0; j < PRODUTOS_POR_ESCRITOR; j++) {
+            String codigo = String.format("E%dP%05d", escritor, j);
+            Categoria categoria = categorias.get(j % 2);
+            gravacoes.add(service.cadastrarProduto(produto(codigo, "Novo " + codigo, categoria)));
+            gravacoes.add(service.atualizarProduto(produto(codigo, "Atualizado " + codigo, categoria)));
+            for (int m = 0; m < 3; m++) {
+                gravacoes.add(service.movimentarEstoque(codigo, 5));
+            }
+            gravacoes.add(service.movimentarEstoque(codigo, -3));
+            if (j % 4 == 0) {
+                gravacoes.add(service.excluirProduto(codigo));
+            }
+            if (j % (PRODUTOS_POR_ESCRITOR / MOVIMENTOS_COMUNS) == 0) {
+                for (int i = 0; i < COMUNS; i++) {
+                    gravacoes.add(service.movimentarEstoque(String.format("COMUM%03d", i), 1));
+                }
+            }
+        }
+    }
+
+    // Leituras e relatórios que percorrem o catálogo e os índices
+    private static void ler(ProdutoService service) {
+        long estoque = 0;
+        for (Produto p : service.listarTodos()) {
+            estoque += p.getQuantidadeEstoque();
+        }
+        assertTrue(estoque >= 0);
+        service.listarPagina(0, 50);
+        service.posicaoDe("COMUM000");
+        service.produtosEstoqueBaixo();
+        service.produtosProximosVencimento();
+        service.produtosPorSetor();
+        service.margemLucroMediaPorCategoria();
+        service.pesquisarProdutos("Atualizado", 20);
+        service.consultar(new ConsultaProdutos(Criterio.e(Criterio.setor("Casa"), Criterio.estoqueEntre(0, ESTOQUE_INICIAL)))
+                .ordenarPor(ConsultaProdutos.Ordenacao.ESTOQUE).limitar(20));
+    }
+
+    private static Produto produto(String codigo, String nome, Categoria categoria) {
+        return new Produto(codigo, nome, "Descrição de " + nome,
+                LocalDate.now().minusDays(10), LocalDate.now().plusDays(20),
+                new BigDecimal("2.00"), new BigDecimal("3.50"), ESTOQUE_INICIAL, categoria);
+    }
+
+    private static List<String> comoTexto(List<Produto> produtos) {
+        List<String> linhas = new ArrayList<>();
+        for (Produto p : produtos) {
+            linhas.add(p.toString());
+        }
+        return linhas;
+    }
+
+    private interface Tarefa {
+        void executar() throws Exception;
+    }
+
+    private static Void registrandoErros(Queue<Throwable> erros, Tarefa tarefa) {
+        try {
+            tarefa.executar();
+        } catch (Throwable t) {
+            erros.add(t);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,136 @@
+package org.suaempresa.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.suaempresa.model.Categoria;
+import org.suaempresa.model.Produto;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Gravação seguida de leitura do snapshot: varints nos limites de cada tamanho, decimais
+// que cabem ou não em um long, tabela de strings e textos nulos. Datas e categoria não
+// são opcionais no formato (o Produto válido sempre os tem).
+class SnapshotBinarioTest {
+    private static final List<Categoria> CATEGORIAS = List.of(
+            new Categoria(1, "Alimentos", "A", "Perecíveis"),
+            new Categoria(2, "Limpeza", "B", "Casa"));
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void gravadoELidoVoltaAoMesmoCatalogo() throws Exception {
+        BigInteger doisA63 = BigInteger.ONE.shiftLeft(63);
+        BigDecimal[] precos = {
+                BigDecimal.ZERO, new BigDecimal("2.50"), new BigDecimal("-1.5"), new BigDecimal("1E+5"),
+                BigDecimal.valueOf(Long.MAX_VALUE, 2), BigDecimal.valueOf(Long.MIN_VALUE, 2),
+                new BigDecimal(doisA63, 2), new BigDecimal(doisA63.negate().subtract(BigInteger.ONE), 2),
+                new BigDecimal("123456789012345678901234567890.123456789")
+        };
+        int[] estoques = {0, -1, 63, -64, 64, 8191, -8192, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        LocalDate[] datas = {LocalDate.of(1970, 1, 1), LocalDate.of(1900, 2, 28), LocalDate.of(2024, 6, 30),
+                LocalDate.of(9999, 12, 31)};
+
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < precos.length * estoques.length; i++) {
+            produtos.add(new Produto(String.format("ABC%05d", i), "Nome " + (i % 3), i % 4 == 0 ? null : "Descrição " + (i % 5),
+                    datas[i % datas.length], datas[(i + 1) % datas.length],
+                    precos[i % precos.length], precos[(i / precos.length + 1) % precos.length],
+                    estoques[i % estoques.length], CATEGORIAS.get(i % 2)));
+        }
+        Path arquivo = diretorio.resolve("produtos.bin");
+        SnapshotBinario.gravar(arquivo, produtos);
+
+        List<Produto> lidos = new ArrayList<>();
+        ResultadoCarga resultado = new SnapshotBinario(CATEGORIAS).carregar(arquivo, lidos::add);
+        assertEquals(produtos.size(), resultado.getLinhas());
+        assertEquals(produtos.size(), lidos.size());
+        for (int i = 0; i < produtos.size(); i++) {
+            Produto esperado = produtos.get(i);
+            Produto lido = lidos.get(i);
+            assertEquals(esperado.toString(), lido.toString());
+            assertEquals(esperado.getDescricao(), lido.getDescricao());
+            // equals do BigDecimal também compara a escala
+            assertEquals(esperado.getPrecoCompra(), lido.getPrecoCompra());
+            assertEquals(esperado.getPrecoVenda(), lido.getPrecoVenda());
+            assertEquals(esperado.getDataFabricacao(), lido.getDataFabricacao());
+            assertEquals(esperado.getCategoria().getId(), lido.getCategoria().getId());
+        }
+        assertNull(lidos.get(0).getDescricao());
+    }
+
+    @Test
+    void textosRepetidosSaoGravadosUmaVez() throws Exception {
+        char[] longo = new char[1000];
+        Arrays.fill(longo, 'x');
+        String nome = new String(longo);
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            produtos.add(new Produto(String.format("ABC%05d", i), nome, nome, LocalDate.of(2024, 1, 10),
+                    LocalDate.of(2024, 6, 30), new BigDecimal("2.50"), new BigDecimal("4.10"), i, CATEGORIAS.get(0)));
+        }
+        Path arquivo = diretorio.resolve("produtos.bin");
+        SnapshotBinario.gravar(arquivo, produtos);
+        // Sem a tabela seriam 100 cópias do texto; com ela, uma cópia mais os campos de cada produto
+        assertTrue(Files.size(arquivo) < 4 * nome.length(), () -> "tamanho " + arquivo);
+
+        List<Produto> lidos = new ArrayList<>();
+        new SnapshotBinario(CATEGORIAS).carregar(arquivo, lidos::add);
+        assertEquals(50, lidos.size());
+        assertEquals(nome, lidos.get(49).getNome());
+    }
+
+    @Test
+    void versaoDesconhecidaEArquivoTruncadoSaoRecusados() throws Exception {
+        Path arquivo = diretorio.resolve("produtos.bin");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(arquivo))) {
+            out.writeInt(SnapshotBinario.MAGICO);
+            out.writeShort(SnapshotBinario.VERSAO + 1);
+        }
+        SnapshotBinario snapshot = new SnapshotBinario(CATEGORIAS);
+        assertThrows(IOException.class, () -> snapshot.carregar(arquivo, p -> { }));
+
+        SnapshotBinario.gravar(arquivo, List.of(new Produto("ABC00001", "Produto", "d", LocalDate.of(2024, 1, 10),
+                LocalDate.of(2024, 6, 30), new BigDecimal("2.50"), new BigDecimal("4.10"), 3, CATEGORIAS.get(0))));
+        byte[] completo = Files.readAllBytes(arquivo);
+        Files.write(arquivo, Arrays.copyOf(completo, completo.length - 3));
+        assertThrows(IOException.class, () -> snapshot.carregar(arquivo, p -> { }));
+    }
+
+    // Com o snapshot ilegível o serviço não abre, mesmo com uma compactação pendente
+    // (produtos.log.old), e o arquivo fica como estava
+    @Test
+    void snapshotIlegivelImpedeAAberturaSemSerSobrescrito() throws Exception {
+        Files.writeString(diretorio.resolve("categorias.csv"), "1;Alimentos;A;Perecíveis\n");
+        Path arquivo = diretorio.resolve("produtos.bin");
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            produtos.add(new Produto(String.format("ABC%05d", i), "Produto " + i, "d", LocalDate.of(2024, 1, 10),
+                    LocalDate.of(2024, 6, 30), new BigDecimal("2.50"), new BigDecimal("4.10"), i, CATEGORIAS.get(0)));
+        }
+        SnapshotBinario.gravar(arquivo, produtos);
+        byte[] completo = Files.readAllBytes(arquivo);
+        byte[] truncado = Arrays.copyOf(completo, completo.length / 2);
+        Files.write(arquivo, truncado);
+        Files.writeString(diretorio.resolve("produtos.log.old"), "");
+
+        assertThrows(UncheckedIOException.class, () -> new ProdutoService(diretorio));
+        assertArrayEquals(truncado, Files.readAllBytes(arquivo));
+    }
+}